@@ -0,0 +1,13 @@
+package com.example.demo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita as tarefas agendadas (@Scheduled), como a varredura de jobs
+ * pendentes do processamento de fotos.
+ */
+@Configuration
+@EnableScheduling
+public class AgendamentoConfig {
+}
@@ -0,0 +1,39 @@
+package com.example.demo.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registra no Hibernate a função busca_texto(titulo, descricao, caracteristicas, termos), usada
+ * pela busca por palavras-chave (ImoveisSpecifications). Assim o MATCH ... AGAINST entra na mesma
+ * consulta dos demais filtros, em vez de uma consulta nativa à parte.
+ *
+ * No MySQL a função vira o MATCH sobre o índice FULLTEXT ft_imoveis_busca (criado pela migração
+ * V2 em db/migracao) e devolve a relevância (0 = não encontrou). Nos outros bancos (H2 dos testes)
+ * é um LIKE sem relevância: 1 se os termos aparecem, 0 se não.
+ *
+ * Carregada pelo Hibernate via META-INF/services/org.hibernate.boot.model.FunctionContributor.
+ */
+public class BuscaTextoConfig implements FunctionContributor {
+
+    public static final String FUNCAO = "busca_texto";
+    public static final String INDICE_FULLTEXT = "ft_imoveis_busca";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        BasicType<Double> relevancia = functionContributions.getTypeConfiguration()
+                .getBasicTypeRegistry().resolve(StandardBasicTypes.DOUBLE);
+        String sql = functionContributions.getDialect() instanceof MySQLDialect
+                ? "match(?1, ?2, ?3) against (?4 in natural language mode)"
+                : "case when lower(concat(coalesce(?1, ''), ' ', coalesce(?2, ''), ' ', coalesce(?3, ''))) "
+                        + "like lower(concat('%', ?4, '%')) then 1.0 else 0.0 end";
+        functionContributions.getFunctionRegistry()
+                .patternDescriptorBuilder(FUNCAO, sql)
+                .setExactArgumentCount(4)
+                .setInvariantType(relevancia)
+                .register();
+    }
+}
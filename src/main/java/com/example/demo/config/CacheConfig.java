@@ -0,0 +1,32 @@
+package com.example.demo.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Habilita o cache do Spring (@Cacheable/@CacheEvict) nos services.
+ * O provedor (Caffeine), os nomes e os limites de tamanho/TTL ficam no application.properties
+ * (spring.cache.*); as estatísticas são exportadas pelo Micrometer em /actuator/metrics/cache.*.
+ *
+ * O interceptor de cache roda por fora do @Transactional: um acerto no cache não abre transação
+ * (nem pega conexão) e o @CacheEvict só acontece depois do commit.
+ */
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class CacheConfig {
+
+    // ImoveisListDTO por ID (GET /imoveis/{id})
+    public static final String IMOVEIS = "imoveis";
+
+    // Primeiras páginas da listagem (GET /imoveis/imoveis-page)
+    public static final String IMOVEIS_PAGINAS = "imoveisPaginas";
+
+    // Quantidade de páginas iniciais da listagem que são mantidas em cache
+    public static final int PAGINAS_EM_CACHE = 5;
+
+    // Região do cache de consultas do Hibernate com as versões das coleções (findVersao dos repositórios).
+    // Expira em poucos segundos (application.conf): o cache é local, então as escritas feitas por outra
+    // instância não o invalidam, e sem expiração o GET condicional responderia 304 com dados antigos
+    public static final String VERSOES = "versoesColecoes";
+}
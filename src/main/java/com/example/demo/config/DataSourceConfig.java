@@ -0,0 +1,116 @@
+package com.example.demo.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Separa leitura e escrita entre a primária (spring.datasource.*) e as réplicas de leitura
+ * (app.datasource.replicas.*). Só entra em uso com app.datasource.replicas.urls preenchido;
+ * sem ele fica o DataSource padrão do Spring Boot, tudo na primária.
+ *
+ * Cada banco tem o seu pool Hikari ("primaria", "replica-1", ...), com as mesmas configurações
+ * de spring.datasource.hikari.*, e as métricas de cada pool vão para /actuator/metrics/hikaricp.*
+ * com a tag pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replicas.urls")
+public class DataSourceConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(DataSourceConfig.class);
+
+    @Value("${app.datasource.replicas.urls}")
+    private List<String> urlsReplicas;
+
+    @Value("${app.datasource.replicas.username:}")
+    private String usuarioReplicas; // Vazio = mesmo usuário da primária
+
+    @Value("${app.datasource.replicas.password:}")
+    private String senhaReplicas;
+
+    @Value("${app.datasource.replicas.atraso-maximo-s:5}")
+    private long atrasoMaximoSegundos;
+
+    // Menor que o padrão do Hikari (30s) para uma réplica fora do ar cair logo para a primária
+    @Value("${app.datasource.replicas.timeout-conexao-ms:2000}")
+    private long timeoutConexaoReplicas;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariConfig configuracaoHikari() {
+        return new HikariConfig();
+    }
+
+    @Bean
+    public RoteamentoDataSource roteamentoDataSource(DataSourceProperties properties, HikariConfig configuracaoHikari,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        MeterRegistry registro = meterRegistry.getIfAvailable();
+
+        HikariDataSource primaria = novoPool(configuracaoHikari, "primaria", properties.determineUrl(),
+                properties.determineUsername(), properties.determinePassword(), registro);
+        primaria.setDriverClassName(properties.determineDriverClassName());
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urlsReplicas.size(); i++) {
+            String nome = "replica-" + (i + 1);
+            boolean usuarioProprio = usuarioReplicas != null && !usuarioReplicas.isBlank();
+            HikariDataSource replica = novoPool(configuracaoHikari, nome, urlsReplicas.get(i).trim(),
+                    usuarioProprio ? usuarioReplicas : properties.determineUsername(),
+                    usuarioProprio ? senhaReplicas : properties.determinePassword(), registro);
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setReadOnly(true);
+            replica.setConnectionTimeout(timeoutConexaoReplicas);
+            replicas.put(nome, replica);
+        }
+
+        RoteamentoDataSource roteamento = new RoteamentoDataSource(primaria, replicas, atrasoMaximoSegundos);
+        if (registro != null) {
+            Gauge.builder("imobiliaria.replicas.disponiveis", roteamento, RoteamentoDataSource::getQuantidadeDisponiveis)
+                    .description("Réplicas de leitura no rodízio")
+                    .register(registro);
+        }
+        log.info("Roteamento de leitura ativo: {} réplica(s).", replicas.size());
+        return roteamento;
+    }
+
+    // O proxy adia a busca da conexão até o primeiro comando, quando o readOnly da transação já é conhecido
+    @Bean
+    @Primary
+    public DataSource dataSource(RoteamentoDataSource roteamentoDataSource) {
+        return new LazyConnectionDataSourceProxy(roteamentoDataSource);
+    }
+
+    // Pool sem iniciar (conecta no primeiro uso), com as configurações comuns de spring.datasource.hikari.*
+    private HikariDataSource novoPool(HikariConfig base, String nome, String url, String usuario, String senha,
+            MeterRegistry registro) {
+        HikariDataSource pool = new HikariDataSource();
+        base.copyStateTo(pool);
+        pool.setPoolName(nome);
+        pool.setJdbcUrl(url);
+        pool.setUsername(usuario);
+        pool.setPassword(senha);
+        if (registro != null) {
+            pool.setMetricRegistry(registro);
+        }
+        return pool;
+    }
+}
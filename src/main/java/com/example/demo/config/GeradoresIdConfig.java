@@ -0,0 +1,66 @@
+package com.example.demo.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Prepara a tabela de geradores de ID (id_geradores) usada pelas entidades com
+ * GenerationType.TABLE. Diferente do IDENTITY, esse tipo de ID é reservado em blocos antes
+ * do INSERT, o que permite ao Hibernate enviar vários INSERTs em um único lote JDBC.
+ *
+ * As tabelas já tinham IDs gerados pelo AUTO_INCREMENT, então o próximo valor de cada
+ * gerador precisa começar acima do maior ID existente. Roda na criação do contexto, depois
+ * do Hibernate atualizar o schema e antes do servidor aceitar requisições. Se algum ajuste
+ * falhar a aplicação não sobe: com o gerador abaixo do maior ID, os próximos INSERTs colidiriam
+ * com linhas existentes.
+ */
+@Component
+public class GeradoresIdConfig {
+
+    public static final String TABELA = "id_geradores";
+    public static final int ALOCACAO = 50; // IDs reservados por ida ao banco (igual ao hibernate.jdbc.batch_size)
+
+    // Valor de "entidade" no id_geradores -> tabela da entidade
+    private static final Map<String, String> GERADORES = Map.of(
+            "imoveis", "imoveis",
+            "bairros", "bairros",
+            "tipos_imoveis", "tipos_imoveis",
+            "usuarios", "usuarios",
+            "fotos_imovel", "fotos_imovel",
+            "processamento_fotos", "processamento_fotos");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory; // Garante que o schema já foi atualizado
+
+    @PostConstruct
+    public void ajustarGeradores() {
+        GERADORES.forEach((entidade, tabela) -> {
+            try {
+                Long maiorId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + tabela, Long.class);
+                // Acima do maior ID mais um bloco inteiro, qualquer que seja a interpretação do otimizador
+                long minimo = (maiorId != null ? maiorId : 0) + ALOCACAO + 1;
+                Integer existe = jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM " + TABELA + " WHERE entidade = ?", Integer.class, entidade);
+                if (existe == null || existe == 0) {
+                    jdbcTemplate.update("INSERT INTO " + TABELA + " (entidade, proximo_valor) VALUES (?, ?)",
+                            entidade, minimo);
+                } else {
+                    jdbcTemplate.update("UPDATE " + TABELA + " SET proximo_valor = ? WHERE entidade = ? AND proximo_valor < ?",
+                            minimo, entidade, minimo);
+                }
+            } catch (DataAccessException e) {
+                throw new IllegalStateException("Não foi possível ajustar o gerador de IDs de " + entidade, e);
+            }
+        });
+    }
+}
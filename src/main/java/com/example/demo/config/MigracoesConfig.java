@@ -0,0 +1,48 @@
+package com.example.demo.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Aplica as migrações versionadas de src/main/resources/db/migracao (Flyway): o que o
+ * ddl-auto=update não faz, como índices FULLTEXT e correções de dados.
+ *
+ * Roda na criação do contexto, depois do Hibernate atualizar o schema (as tabelas já existem)
+ * e antes do servidor aceitar requisições. Cada migração roda uma única vez (histórico na tabela
+ * schema_migracoes) e o Flyway trava o histórico, então várias instâncias subindo juntas não
+ * aplicam a mesma migração duas vezes. Se uma migração falhar a aplicação não sobe.
+ */
+@Component
+public class MigracoesConfig {
+
+    public static final String TABELA_HISTORICO = "schema_migracoes";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory; // Garante que o schema já foi atualizado
+
+    @PostConstruct
+    public void migrar() {
+        MigrateResult resultado = Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migracao")
+                .table(TABELA_HISTORICO)
+                .baselineOnMigrate(true) // Bancos que já existiam antes das migrações
+                .baselineVersion("0")
+                .load()
+                .migrate();
+        if (resultado.migrationsExecuted > 0) {
+            System.out.println("Migrações aplicadas: " + resultado.migrationsExecuted
+                    + " (versão " + resultado.targetSchemaVersion + ").");
+        }
+    }
+}
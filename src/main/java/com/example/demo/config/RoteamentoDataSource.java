@@ -0,0 +1,173 @@
+package com.example.demo.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource que manda as transações readOnly para as réplicas de leitura (em rodízio) e todo o
+ * resto (escritas, código fora de transação, schema, geradores de ID) para a primária.
+ *
+ * A decisão usa o readOnly da transação atual, então precisa ficar atrás de um
+ * LazyConnectionDataSourceProxy: o gerenciador de transações pede a conexão antes de marcar a
+ * transação como somente leitura, e o proxy só busca a conexão real no primeiro comando SQL.
+ *
+ * Uma réplica sai do rodízio quando o atraso de replicação passa do limite, a replicação está
+ * parada ou a conexão falha; nesses casos a leitura vai para a primária. A verificação periódica
+ * devolve a réplica ao rodízio quando ela volta a responder em dia.
+ */
+public class RoteamentoDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    public static final String PRIMARIA = "primaria";
+
+    private static final Logger log = LoggerFactory.getLogger(RoteamentoDataSource.class);
+
+    private final DataSource primaria;
+    private final Map<String, DataSource> replicas;
+    private final long atrasoMaximoSegundos;
+
+    private volatile List<String> disponiveis; // Réplicas no rodízio
+    private final AtomicInteger contador = new AtomicInteger();
+
+    public RoteamentoDataSource(DataSource primaria, Map<String, DataSource> replicas, long atrasoMaximoSegundos) {
+        this.primaria = primaria;
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.atrasoMaximoSegundos = atrasoMaximoSegundos;
+        this.disponiveis = List.copyOf(this.replicas.keySet()); // Até a primeira verificação
+
+        Map<Object, Object> alvos = new HashMap<>(this.replicas);
+        alvos.put(PRIMARIA, primaria);
+        setTargetDataSources(alvos);
+        setDefaultTargetDataSource(primaria);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected String determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARIA;
+        }
+        List<String> atuais = disponiveis;
+        if (atuais.isEmpty()) {
+            return PRIMARIA;
+        }
+        return atuais.get(Math.floorMod(contador.getAndIncrement(), atuais.size()));
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return conectar(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return conectar(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    /**
+     * Consulta o status de replicação de cada réplica e refaz o rodízio.
+     * Ficam fora as réplicas com atraso acima do limite, com a replicação parada ou sem conexão.
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.replicas.verificacao-ms:5000}")
+    public void verificarReplicas() {
+        List<String> emDia = new ArrayList<>();
+        for (Map.Entry<String, DataSource> replica : replicas.entrySet()) {
+            try {
+                Long atraso = atrasoEmSegundos(replica.getValue());
+                if (atraso == null) {
+                    log.warn("Réplica {} com a replicação parada; fora do rodízio.", replica.getKey());
+                } else if (atraso > atrasoMaximoSegundos) {
+                    log.warn("Réplica {} atrasada {}s; fora do rodízio.", replica.getKey(), atraso);
+                } else {
+                    emDia.add(replica.getKey());
+                }
+            } catch (SQLException e) {
+                log.warn("Não foi possível verificar a réplica {}: {}", replica.getKey(), e.getMessage());
+            }
+        }
+        disponiveis = List.copyOf(emDia);
+    }
+
+    public int getQuantidadeDisponiveis() {
+        return disponiveis.size();
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource replica : replicas.values()) {
+            if (replica instanceof AutoCloseable fechavel) {
+                fechavel.close();
+            }
+        }
+        if (primaria instanceof AutoCloseable fechavel) {
+            fechavel.close();
+        }
+    }
+
+    // Abre a conexão no banco escolhido; se a réplica falhar, ela sai do rodízio e a leitura vai para a primária
+    private Connection conectar(Conexao conexao) throws SQLException {
+        String chave = determineCurrentLookupKey();
+        if (PRIMARIA.equals(chave)) {
+            return conexao.abrir(primaria);
+        }
+        try {
+            return conexao.abrir(replicas.get(chave));
+        } catch (SQLException e) {
+            log.warn("Réplica {} indisponível, lendo da primária: {}", chave, e.getMessage());
+            retirar(chave);
+            return conexao.abrir(primaria);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Conexao {
+        Connection abrir(DataSource dataSource) throws SQLException;
+    }
+
+    private synchronized void retirar(String chave) {
+        List<String> restantes = new ArrayList<>(disponiveis);
+        restantes.remove(chave);
+        disponiveis = List.copyOf(restantes);
+    }
+
+    // Seconds_Behind_Source da réplica; null se a replicação estiver parada
+    private Long atrasoEmSegundos(DataSource replica) throws SQLException {
+        try (Connection con = replica.getConnection(); Statement st = con.createStatement()) {
+            try (ResultSet status = statusReplicacao(st)) {
+                if (!status.next()) {
+                    return 0L; // Servidor sem replicação configurada: não há atraso a esperar
+                }
+                long atraso;
+                try {
+                    atraso = status.getLong("Seconds_Behind_Source");
+                } catch (SQLException e) {
+                    atraso = status.getLong("Seconds_Behind_Master");
+                }
+                return status.wasNull() ? null : atraso;
+            }
+        }
+    }
+
+    private ResultSet statusReplicacao(Statement st) throws SQLException {
+        try {
+            return st.executeQuery("SHOW REPLICA STATUS");
+        } catch (SQLSyntaxErrorException e) {
+            return st.executeQuery("SHOW SLAVE STATUS"); // MySQL anterior ao 8.0.22
+        }
+    }
+}
@@ -1,14 +1,22 @@
 // src/main/java/com/example/demo/config/WebConfig.java
 package com.example.demo.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    @Value("${app.upload.dir:./uploads}")
+    private String uploadDir;
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**") // Aplica a todos os endpoints
@@ -20,10 +28,14 @@ public class WebConfig implements WebMvcConfigurer {
 
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // Servir arquivos de upload do diretório configurado
-        // Ex: app.upload.dir=/home/weverton/Documents/imobiliaria/uploads
+        // Servir arquivos de upload do diretório configurado (app.upload.dir)
         // Então, http://localhost:8080/uploads/... serve arquivos desse diretório
+        // Os arquivos têm nome UUID e nunca são sobrescritos, por isso o cache imutável de 1 ano.
+        // Para Range/ETag pelo conteúdo, prefira GET /fotos-imoveis/{id}/arquivo.
+        // Só tem efeito com app.storage.tipo=local (no S3 os arquivos não estão neste disco).
+        String local = Paths.get(uploadDir).toAbsolutePath().normalize().toUri().toString();
         registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:/home/weverton/Documents/imobiliaria/uploads/");
+                .addResourceLocations(local.endsWith("/") ? local : local + "/")
+                .setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable());
     }
 }
\ No newline at end of file
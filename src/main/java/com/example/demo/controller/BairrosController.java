@@ -3,11 +3,13 @@ package com.example.demo.controller;
 import com.example.demo.dto.BairrosDTO;
 import com.example.demo.model.BairrosModel;
 import com.example.demo.model.ImoveisModel;
+import com.example.demo.dto.VersaoColecaoDTO;
 import com.example.demo.services.BairrosServices;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -23,7 +25,13 @@ public class BairrosController {
     private BairrosServices service;
 
     @GetMapping
-    public ResponseEntity<List<BairrosModel>> getAll() {
+    public ResponseEntity<List<BairrosModel>> getAll(WebRequest request) {
+        // GET condicional: se o cliente já tem a versão atual (If-None-Match/If-Modified-Since),
+        // o Spring responde 304 sem corpo e a lista nem é carregada
+        VersaoColecaoDTO versao = service.getVersao();
+        if (request.checkNotModified(versao.getEtag("bairros"), versao.getUltimaModificacao())) {
+            return null;
+        }
         List<BairrosModel> lista = service.getAll();
         return ResponseEntity.status(HttpStatus.OK).body(lista);
     }
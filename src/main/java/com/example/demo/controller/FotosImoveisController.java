@@ -1,16 +1,26 @@
 package com.example.demo.controller;
 
 import com.example.demo.dto.FotosImoveisDTO;
+import com.example.demo.dto.ResultadoUploadDTO;
+import com.example.demo.model.BlobFotoModel;
 import com.example.demo.model.FotosImoveisModel;
 import com.example.demo.model.ImoveisModel;
+import com.example.demo.model.ProcessamentoFotoModel;
 import com.example.demo.model.UserModel;
 import com.example.demo.repository.ImoveisRepository;
+import com.example.demo.services.BlobsFotosServices;
+import com.example.demo.services.EntregaFotosServices;
 import com.example.demo.services.FotosImoveisServices;
+import com.example.demo.services.ImagensServices;
+import com.example.demo.services.PhotoStorage;
+import com.example.demo.services.ProcessamentoFotosServices;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springframework.data.domain.Page;
@@ -19,19 +29,27 @@ import org.springframework.data.domain.Pageable;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper; // Para converter String JSON em Objeto
 
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.fileupload.FileUpload;
+import org.apache.commons.fileupload.FileUploadBase;
+import org.apache.commons.fileupload.FileUploadException;
+import org.apache.commons.fileupload.UploadContext;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
-import org.springframework.web.multipart.MultipartFile;
 
 @RestController
 @RequestMapping(value = "/fotos-imoveis")
@@ -46,32 +64,78 @@ public class FotosImoveisController {
     @Autowired
     private ObjectMapper objectMapper; // Injeta o ObjectMapper do Spring para desserializar JSON
 
+    @Autowired
+    private BlobsFotosServices blobsServices; // Armazenamento pelo conteúdo (deduplicado)
+
+    @Autowired
+    private PhotoStorage storage; // Disco local ou S3 (app.storage.tipo)
+
+    @Autowired
+    private EntregaFotosServices entregaFotosServices; // Envio dos arquivos (sendfile, Range, ETag)
+
+    @Autowired
+    private ProcessamentoFotosServices processamentoServices; // Status da geração das versões redimensionadas
+
     // Injeta o caminho base para salvar os arquivos a partir do
     // application.properties
     @Value("${app.upload.dir:./uploads}") // Valor padrão se não estiver no .properties
     private String uploadDir;
 
+    private static final int MAX_ARQUIVOS_LOTE = 50;
+
+    // Limites do upload (lidos em fluxo pelo commons-fileupload, ver novoUpload())
+    @Value("${spring.servlet.multipart.max-file-size:20MB}")
+    private DataSize maxFileSize;
+
+    @Value("${spring.servlet.multipart.max-request-size:25MB}")
+    private DataSize maxRequestSize;
+
     /**
      * Endpoint para upload de nova foto de imóvel via multipart/form-data.
      * Requer que o usuário esteja logado e que o imóvel pertença a ele (ou seja
      * admin).
+     * Partes: "arquivo" (a imagem) e "dados" (JSON do FotosImoveisDTO), em qualquer ordem.
+     * O arquivo é lido direto do corpo da requisição (sem o arquivo temporário do multipart
+     * do Spring) e gravado uma única vez no armazenamento, com hash e limite de tamanho
+     * calculados durante a leitura.
      */
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<?> salvar(
-            @RequestPart("arquivo") MultipartFile arquivo,
-            @RequestPart("dados") String dados,
-            HttpSession session) {
+    public ResponseEntity<?> salvar(HttpServletRequest request, HttpSession session) {
 
-        // 1. Verificar se o usuário está logado
+        // 1. Verificar se o usuário está logado (antes de ler o corpo da requisição)
         Object usuarioLogadoObj = session.getAttribute("usuarioLogado");
         if (usuarioLogadoObj == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Usuário não está logado.");
         }
         UserModel usuarioLogado = (UserModel) usuarioLogadoObj; // Assume que você salvou o objeto UserModel na sessão
 
+        BlobFotoModel blob = null; // Referência ao arquivo gravado; liberada se a foto não for salva
+        boolean fotoSalva = false;
         try {
-            // 2. Converter a String de dados JSON para um objeto FotosImoveisDTO
-            FotosImoveisDTO dto = objectMapper.readValue(dados, FotosImoveisDTO.class);
+            // 2. Ler as partes em fluxo: o JSON de dados e o arquivo (gravado como blob pelo conteúdo)
+            FotosImoveisDTO dto = null;
+            String nomeOriginal = null;
+            FileItemIterator partes = novoUpload().getItemIterator(new RequisicaoMultipart(request));
+            while (partes.hasNext()) {
+                FileItemStream parte = partes.next();
+                if ("dados".equals(parte.getFieldName())) {
+                    try (InputStream conteudo = parte.openStream()) {
+                        dto = objectMapper.readValue(conteudo, FotosImoveisDTO.class);
+                    }
+                } else if ("arquivo".equals(parte.getFieldName()) && !parte.isFormField()) {
+                    if (blob != null) {
+                        return ResponseEntity.badRequest().body("Envie apenas um arquivo por requisição.");
+                    }
+                    // {uploadDir}/blobs/xx/yy/{sha256}.{ext}; se a mesma foto já foi enviada, o arquivo é reaproveitado
+                    nomeOriginal = parte.getName();
+                    try (InputStream conteudo = parte.openStream()) {
+                        blob = blobsServices.armazenar(conteudo, nomeOriginal);
+                    }
+                }
+            }
+            if (dto == null || blob == null) {
+                return ResponseEntity.badRequest().body("As partes 'arquivo' e 'dados' são obrigatórias.");
+            }
 
             // 3. Validar se imovelId foi fornecido
             if (dto.getImovelId() == null) {
@@ -92,48 +156,43 @@ public class FotosImoveisController {
                         .body("Você não tem permissão para adicionar fotos a este imóvel.");
             }
 
-            // 6. Salvar o arquivo no sistema de arquivos
-            // Caminho completo: {uploadDir}/{imovelId}/fotos/{nome_arquivo_unico}
-            String subDirPath = dto.getImovelId().toString() + File.separator + "fotos";
-            Path dirPath = Paths.get(uploadDir, subDirPath);
-
-            // Cria os diretórios se não existirem
-            if (!Files.exists(dirPath)) {
-                Files.createDirectories(dirPath);
-            }
-
-            // Gerar nome único para o arquivo
-            String nomeArquivo = UUID.randomUUID() + "-" + arquivo.getOriginalFilename();
-            Path filePath = dirPath.resolve(nomeArquivo);
-
-            // Transferir o arquivo para o local desejado
-            arquivo.transferTo(filePath);
-
-            // Calcular o caminho relativo ou absoluto para salvar no banco
-            // Aqui vamos salvar o caminho relativo ao uploadDir para portabilidade
-            String caminhoRelativo = Paths.get(subDirPath, nomeArquivo).toString();
-
-            // 7. Criar um modelo FotosImoveisModel a partir do DTO e do caminho do arquivo
-            // salvo
-            // O serviço deve receber o DTO e o caminho, e associar ao imóvel encontrado
-            // acima
+            // 6. Criar um modelo FotosImoveisModel a partir do DTO e do blob gravado
+            String nomeArquivo = StringUtils.cleanPath(nomeOriginal != null && !nomeOriginal.isBlank()
+                    ? nomeOriginal : blob.getHash());
             FotosImoveisModel model = new FotosImoveisModel();
             model.setNome_arquivo(nomeArquivo);
-            model.setCaminho(caminhoRelativo);
+            model.setCaminho(blob.getCaminho()); // Caminho relativo ao uploadDir
+            model.setHash(blob.getHash());
             model.setCapa(dto.getCapa() != null ? dto.getCapa() : false);
             model.setOrdem(dto.getOrdem() != null ? dto.getOrdem() : 0);
             model.setImovel(imovel); // Associa o imóvel já validado
 
-            // 8. Salvar o modelo no banco de dados usando o serviço
-            FotosImoveisModel modelSalvo = service.insert(model);
+            // 7. Salvar o modelo no banco e enfileirar a geração das versões redimensionadas
+            // (feita em segundo plano, o upload não espera pelo processamento)
+            FotosImoveisModel modelSalvo = service.insertUpload(model);
+            fotoSalva = true;
 
-            // 9. Retornar resposta de sucesso
+            // 8. Retornar resposta de sucesso
             URI uri = ServletUriComponentsBuilder.fromCurrentRequest()
                     .replacePath("/fotos-imoveis/{id}") // Ou outro path para acessar a foto
                     .buildAndExpand(modelSalvo.getId())
                     .toUri();
             return ResponseEntity.created(uri).body(modelSalvo); // Retorna o objeto criado, não uma mensagem
 
+        } catch (FileUploadBase.SizeLimitExceededException | FileUploadBase.FileSizeLimitExceededException e) {
+            // Arquivo ou requisição acima do limite (spring.servlet.multipart.max-file-size/max-request-size)
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body("Arquivo muito grande: " + e.getMessage());
+        } catch (FileUploadBase.FileUploadIOException e) {
+            // Limite estourado no meio da leitura do arquivo (o commons-fileupload embrulha em IOException)
+            if (limiteExcedido(e.getCause())) {
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                        .body("Arquivo muito grande: " + e.getCause().getMessage());
+            }
+            return ResponseEntity.badRequest().body("Requisição multipart inválida: " + e.getCause().getMessage());
+        } catch (FileUploadException e) {
+            // Corpo multipart malformado ou conexão interrompida no meio do upload
+            return ResponseEntity.badRequest().body("Requisição multipart inválida: " + e.getMessage());
         } catch (com.fasterxml.jackson.core.JsonProcessingException e) { // <--- ESPECÍFICO PRIMEIRO
             // Erro ao processar o JSON dos dados
             return ResponseEntity.badRequest().body("JSON de dados inválido: " + e.getMessage());
@@ -149,27 +208,227 @@ public class FotosImoveisController {
             e.printStackTrace(); // Log importante para debug
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Erro interno do servidor ao processar upload: " + e.getMessage());
+        } finally {
+            if (blob != null && !fotoSalva) {
+                liberarBlob(blob.getHash()); // Desfaz a referência registrada no passo 2
+            }
         }
     }
 
     /**
-     * Endpoint para listar todas as fotos (GET /fotos-imoveis)
+     * Endpoint para upload de várias fotos de um imóvel em uma requisição (POST /fotos-imoveis/lote?imovelId=1)
+     * Partes: "arquivos" (um ou mais arquivos, até 50). Login e permissão são verificados uma vez,
+     * antes de ler o corpo; as fotos são salvas em um único lote de INSERTs, na ordem de envio.
+     * Retorna o resultado de cada arquivo (um arquivo com erro não impede os demais).
+     * Acesso: Somente admin ou proprietário do imóvel
+     */
+    @PostMapping(value = "/lote", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> salvarLote(@RequestParam Integer imovelId, HttpServletRequest request, HttpSession session) {
+        // 1. Login e permissão, uma vez para o lote inteiro
+        Object usuarioLogadoObj = session.getAttribute("usuarioLogado");
+        if (usuarioLogadoObj == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Usuário não está logado.");
+        }
+        UserModel usuarioLogado = (UserModel) usuarioLogadoObj;
+
+        ImoveisModel imovel = imoveisRepository.findById(imovelId).orElse(null);
+        if (imovel == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Imóvel não encontrado.");
+        }
+        if (!usuarioLogado.getTipo().equals(UserModel.Tipo.ADMIN) &&
+                !imovel.getUsuario().getId().equals(usuarioLogado.getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body("Você não tem permissão para adicionar fotos a este imóvel.");
+        }
+
+        // 2. Ler os arquivos em sequência (o multipart é um stream único); enquanto um arquivo vai
+        // para o armazenamento em paralelo, o próximo já está sendo lido
+        List<String> nomes = new ArrayList<>();
+        List<CompletableFuture<BlobFotoModel>> gravacoes = new ArrayList<>();
+        boolean fotosSalvas = false;
+        try {
+            FileItemIterator partes = novoUpload().getItemIterator(new RequisicaoMultipart(request));
+            while (partes.hasNext()) {
+                FileItemStream parte = partes.next();
+                if (parte.isFormField() || !"arquivos".equals(parte.getFieldName())) {
+                    continue;
+                }
+                if (nomes.size() == MAX_ARQUIVOS_LOTE) {
+                    return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                            .body("Lote muito grande: no máximo " + MAX_ARQUIVOS_LOTE + " arquivos por requisição.");
+                }
+                String nome = parte.getName() != null && !parte.getName().isBlank()
+                        ? StringUtils.cleanPath(parte.getName()) : "arquivo-" + (nomes.size() + 1);
+                nomes.add(nome);
+                try (InputStream conteudo = parte.openStream()) {
+                    gravacoes.add(blobsServices.registrarAsync(blobsServices.receber(conteudo, nome)));
+                } catch (FileUploadBase.FileUploadIOException e) {
+                    if (!(e.getCause() instanceof FileUploadBase.FileSizeLimitExceededException)) {
+                        throw e; // Requisição inteira acima do limite
+                    }
+                    // Só este arquivo passou do limite: o restante do lote continua
+                    gravacoes.add(CompletableFuture.failedFuture(
+                            new IOException("Arquivo acima do limite de " + maxFileSize.toMegabytes() + "MB")));
+                }
+            }
+            if (nomes.isEmpty()) {
+                return ResponseEntity.badRequest().body("Envie ao menos um arquivo na parte 'arquivos'.");
+            }
+
+            // 3. Aguardar as gravações e montar os modelos dos arquivos gravados
+            List<ResultadoUploadDTO> resultados = new ArrayList<>();
+            List<FotosImoveisModel> models = new ArrayList<>();
+            List<Integer> posicoes = new ArrayList<>(); // Índice em "resultados" de cada modelo
+            for (int i = 0; i < nomes.size(); i++) {
+                try {
+                    BlobFotoModel blob = gravacoes.get(i).join();
+                    FotosImoveisModel model = new FotosImoveisModel();
+                    model.setNome_arquivo(nomes.get(i));
+                    model.setCaminho(blob.getCaminho());
+                    model.setHash(blob.getHash());
+                    model.setCapa(false);
+                    model.setOrdem(i);
+                    model.setImovel(imovel);
+                    models.add(model);
+                    posicoes.add(resultados.size());
+                    resultados.add(null); // Preenchido depois do INSERT
+                } catch (CompletionException e) {
+                    Throwable causa = e.getCause() != null ? e.getCause() : e;
+                    resultados.add(ResultadoUploadDTO.erro(nomes.get(i), causa.getMessage()));
+                }
+            }
+
+            // 4. Salvar todas as fotos em um único lote e enfileirar o processamento
+            List<FotosImoveisModel> salvos = service.insertUploads(models);
+            fotosSalvas = true;
+            for (int i = 0; i < salvos.size(); i++) {
+                FotosImoveisModel salvo = salvos.get(i);
+                resultados.set(posicoes.get(i), ResultadoUploadDTO.sucesso(salvo.getNome_arquivo(), salvo.getId(), salvo.getCaminho()));
+            }
+
+            HttpStatus status = salvos.isEmpty() ? HttpStatus.BAD_REQUEST : HttpStatus.CREATED;
+            return ResponseEntity.status(status).body(resultados);
+
+        } catch (FileUploadBase.SizeLimitExceededException | FileUploadBase.FileSizeLimitExceededException e) {
+            // Requisição inteira acima do limite
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body("Lote muito grande: " + e.getMessage());
+        } catch (FileUploadBase.FileUploadIOException e) {
+            if (limiteExcedido(e.getCause())) {
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body("Lote muito grande: " + e.getCause().getMessage());
+            }
+            return ResponseEntity.badRequest().body("Requisição multipart inválida: " + e.getCause().getMessage());
+        } catch (FileUploadException e) {
+            return ResponseEntity.badRequest().body("Requisição multipart inválida: " + e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro ao salvar os arquivos no servidor: " + e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro ao salvar as fotos: " + e.getMessage());
+        } finally {
+            if (!fotosSalvas) {
+                // Aborto no meio do lote: espera as gravações em andamento e desfaz uma referência por arquivo
+                for (CompletableFuture<BlobFotoModel> gravacao : gravacoes) {
+                    try {
+                        liberarBlob(gravacao.join().getHash());
+                    } catch (CompletionException e) {
+                        // Arquivo que não chegou a ser gravado
+                    }
+                }
+            }
+        }
+    }
+
+    // Leitor multipart em fluxo, com os mesmos limites configurados para o multipart do Spring
+    private FileUpload novoUpload() {
+        FileUpload upload = new FileUpload();
+        upload.setFileSizeMax(maxFileSize.toBytes());
+        upload.setSizeMax(maxRequestSize.toBytes());
+        return upload;
+    }
+
+    // Requisição ou arquivo acima do limite (as duas exceções têm a superclasse protegida no commons-fileupload)
+    private static boolean limiteExcedido(Throwable e) {
+        return e instanceof FileUploadBase.SizeLimitExceededException
+                || e instanceof FileUploadBase.FileSizeLimitExceededException;
+    }
+
+    // O commons-fileupload 1.x só traz adaptador para o javax.servlet; a API de fluxo recebe a requisição por aqui
+    private record RequisicaoMultipart(HttpServletRequest request) implements UploadContext {
+
+        @Override
+        public String getCharacterEncoding() {
+            return request.getCharacterEncoding();
+        }
+
+        @Override
+        public String getContentType() {
+            return request.getContentType();
+        }
+
+        @Override
+        @Deprecated
+        public int getContentLength() {
+            return request.getContentLength();
+        }
+
+        @Override
+        public long contentLength() {
+            return request.getContentLengthLong();
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return request.getInputStream();
+        }
+    }
+
+    private void liberarBlob(String hash) {
+        try {
+            blobsServices.liberar(hash);
+        } catch (IOException e) {
+            System.err.println("Erro ao liberar o arquivo " + hash + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint para migrar as fotos antigas para o armazenamento por conteúdo (POST /fotos-imoveis/deduplicar)
+     * Arquivos idênticos passam a ser um único blob; pode ser executado mais de uma vez.
+     * Acesso: Somente admin
+     */
+    @PostMapping("/deduplicar")
+    public ResponseEntity<?> deduplicar(HttpSession session) {
+        Object usuarioLogadoObj = session.getAttribute("usuarioLogado");
+        if (usuarioLogadoObj == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        UserModel usuarioLogado = (UserModel) usuarioLogadoObj;
+        if (!usuarioLogado.getTipo().equals(UserModel.Tipo.ADMIN)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(blobsServices.deduplicarExistentes());
+    }
+
+    /**
+     * Endpoint para listar as fotos (GET /fotos-imoveis)
+     * Retorna no máximo FotosImoveisServices.MAX_FOTOS_POR_PAGINA fotos; para mais, use /fotos-page.
      * Acesso: Qualquer um (visitante, logado)
      * OBS: Pode ser útil para admins, mas talvez não para visitantes (pense na
      * privacidade)
      */
     @GetMapping
-    public ResponseEntity<List<FotosImoveisModel>> getAll() {
-        List<FotosImoveisModel> lista = service.getAll();
+    public ResponseEntity<List<FotosImoveisDTO>> getAll() {
+        List<FotosImoveisDTO> lista = service.getAll();
         return ResponseEntity.status(HttpStatus.OK).body(lista);
     }
 
     /**
      * Endpoint para paginação de fotos (GET /fotos-imoveis/fotos-page)
+     * O tamanho da página é limitado a FotosImoveisServices.MAX_FOTOS_POR_PAGINA.
      * Acesso: Qualquer um (visitante, logado)
      */
     @GetMapping("/fotos-page")
-    public Page<FotosImoveisModel> getPosts(Pageable pageable) {
+    public Page<FotosImoveisDTO> getPosts(Pageable pageable) {
         return service.getAll(pageable);
     }
 
@@ -178,10 +437,97 @@ public class FotosImoveisController {
      * Acesso: Qualquer um (visitante, logado)
      */
     @GetMapping("/{id}")
-    public ResponseEntity<FotosImoveisModel> getById(@PathVariable Integer id) {
+    public ResponseEntity<FotosImoveisDTO> getById(@PathVariable Integer id) {
+        FotosImoveisDTO dto = service.findDto(id);
+        if (dto != null) {
+            return ResponseEntity.status(HttpStatus.OK).body(dto);
+        } else {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        }
+    }
+
+    /**
+     * Endpoint para obter a imagem de uma foto em um tamanho (GET /fotos-imoveis/{id}/imagem?tamanho=thumb)
+     * Tamanhos: thumb, card, full ou original (padrão). Redireciona para o arquivo em /uploads
+     * (disco local) ou para /fotos-imoveis/{id}/arquivo (armazenamento remoto).
+     * Acesso: Qualquer um (visitante, logado)
+     */
+    @GetMapping("/{id}/imagem")
+    public ResponseEntity<?> getImagem(@PathVariable Integer id,
+            @RequestParam(required = false) String tamanho) {
+        ImagensServices.Tamanho tamanhoSolicitado;
+        try {
+            tamanhoSolicitado = ImagensServices.Tamanho.fromParametro(tamanho);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Tamanho inválido. Use thumb, card, full ou original.");
+        }
+
+        FotosImoveisModel model = service.find(id);
+        if (model == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        String caminho = model.caminhoDoTamanho(tamanhoSolicitado != null ? tamanhoSolicitado.getSufixo() : null);
+        if (storage.localPath(caminho).isEmpty()) {
+            URI uri = ServletUriComponentsBuilder.fromCurrentContextPath()
+                    .path("/fotos-imoveis/{id}/arquivo")
+                    .queryParamIfPresent("tamanho", Optional.ofNullable(tamanho))
+                    .buildAndExpand(id)
+                    .encode()
+                    .toUri();
+            return ResponseEntity.status(HttpStatus.FOUND).location(uri).build();
+        }
+        URI uri = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/uploads/{caminho}")
+                .buildAndExpand(caminho.replace(File.separatorChar, '/'))
+                .encode()
+                .toUri();
+        return ResponseEntity.status(HttpStatus.FOUND).location(uri).build();
+    }
+
+    /**
+     * Endpoint que entrega o arquivo de uma foto (GET /fotos-imoveis/{id}/arquivo?tamanho=card)
+     * Tamanhos: thumb, card, full ou original (padrão); sem a derivada, entrega o original.
+     * Suporta Range, If-None-Match (ETag pelo conteúdo) e HEAD. Quando a versão pedida já existe,
+     * a resposta pode ficar em cache por 1 ano (nomes pelo hash ou UUID nunca mudam de conteúdo).
+     * Acesso: Qualquer um (visitante, logado)
+     */
+    @GetMapping("/{id}/arquivo")
+    public void getArquivo(@PathVariable Integer id,
+            @RequestParam(required = false) String tamanho,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ImagensServices.Tamanho tamanhoSolicitado;
+        try {
+            tamanhoSolicitado = ImagensServices.Tamanho.fromParametro(tamanho);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Tamanho inválido. Use thumb, card, full ou original.");
+            return;
+        }
+
         FotosImoveisModel model = service.find(id);
-        if (model != null) {
-            return ResponseEntity.status(HttpStatus.OK).body(model);
+        if (model == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String sufixo = tamanhoSolicitado != null ? tamanhoSolicitado.getSufixo() : null;
+        String caminho = model.caminhoDoTamanho(sufixo);
+
+        // Enquanto a derivada não é gerada a URL entrega o original: nesse caso o cache não pode ser imutável
+        boolean versaoDefinitiva = sufixo == null || !caminho.equals(model.getCaminho());
+        if (!entregaFotosServices.enviar(caminho, versaoDefinitiva, request, response)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+
+    /**
+     * Endpoint para consultar o processamento de uma foto (GET /fotos-imoveis/{id}/processamento)
+     * Retorna o status (PENDENTE, PROCESSANDO, CONCLUIDO ou ERRO) e o número de tentativas.
+     * Acesso: Qualquer um (visitante, logado)
+     */
+    @GetMapping("/{id}/processamento")
+    public ResponseEntity<ProcessamentoFotoModel> getProcessamento(@PathVariable Integer id) {
+        ProcessamentoFotoModel job = processamentoServices.findByFotoId(id);
+        if (job != null) {
+            return ResponseEntity.ok(job);
         } else {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
         }
@@ -189,15 +535,13 @@ public class FotosImoveisController {
 
     /**
      * Endpoint para listar fotos por ID do imóvel (GET /fotos-imoveis/imoveis/{id})
+     * As fotos vêm na ordem de exibição (campo "ordem").
      * Acesso: Qualquer um (visitante, logado)
      */
     @GetMapping("/imoveis/{id}")
-    public ResponseEntity<List<FotosImoveisModel>> getFotosByImovelId(@PathVariable Integer id) {
+    public ResponseEntity<List<FotosImoveisDTO>> getFotosByImovelId(@PathVariable Integer id) {
         // Buscar fotos pelo ID do imóvel
-        List<FotosImoveisModel> fotos = service.findByImovelId(id); // Este método deve existir no service
-        // Ou usar o método do repositório:
-        // service.getAll().stream().filter(...).toList();
-        // Mas é melhor ter um método específico no service/repo.
+        List<FotosImoveisDTO> fotos = service.findByImovelId(id);
         return ResponseEntity.ok(fotos);
     }
 
@@ -257,8 +601,8 @@ public class FotosImoveisController {
         UserModel usuarioLogado = (UserModel) usuarioLogadoObj;
 
         try {
-            // Buscar a foto existente
-            FotosImoveisModel fotoExistente = service.find(id);
+            // Buscar a foto existente (já com o imóvel e o proprietário, para a verificação abaixo)
+            FotosImoveisModel fotoExistente = service.findComImovel(id);
             if (fotoExistente == null) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
             }
@@ -314,8 +658,8 @@ public class FotosImoveisController {
         UserModel usuarioLogado = (UserModel) usuarioLogadoObj;
 
         try {
-            // Buscar a foto existente
-            FotosImoveisModel foto = service.find(id);
+            // Buscar a foto existente (já com o imóvel e o proprietário, para a verificação abaixo)
+            FotosImoveisModel foto = service.findComImovel(id);
             if (foto == null) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
             }
@@ -327,19 +671,7 @@ public class FotosImoveisController {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
             }
 
-            // Excluir arquivo físico (opcional, mas recomendado)
-            Path filePath = Paths.get(uploadDir, foto.getCaminho()).normalize();
-            try {
-                if (Files.exists(filePath)) {
-                    Files.delete(filePath);
-                }
-            } catch (IOException e) {
-                System.err.println("Erro ao excluir arquivo físico: " + e.getMessage());
-                // Mesmo com erro no arquivo, tentamos excluir o registro do banco
-                // Poderia retornar um erro específico, mas por enquanto apenas logamos.
-            }
-
-            // Excluir registro do banco
+            // Excluir o registro do banco (o service também exclui o arquivo original e as derivadas)
             boolean deleted = service.delete(id);
 
             if (deleted) {
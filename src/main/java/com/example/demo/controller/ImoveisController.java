@@ -1,25 +1,44 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.AtualizacaoLoteImoveisDTO;
+import com.example.demo.dto.ImoveisCursorDTO;
+import com.example.demo.dto.ImoveisDetalheDTO;
 import com.example.demo.dto.ImoveisDTO;
+import com.example.demo.dto.ImoveisFacetasDTO;
+import com.example.demo.dto.ImoveisFiltroDTO;
 import com.example.demo.dto.ImoveisListDTO;
+import com.example.demo.dto.ResultadoImportacaoDTO;
+import com.example.demo.dto.VersaoColecaoDTO;
 import com.example.demo.model.ImoveisModel;
 import com.example.demo.model.TiposImoveisModel;
 import com.example.demo.model.UserModel;
+import com.example.demo.services.AcessoNegadoException;
+import com.example.demo.services.ImoveisFacetasServices;
 import com.example.demo.services.ImoveisServices;
+import com.example.demo.services.ImportacaoImoveisServices;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
 import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @RestController
 @RequestMapping(value = "/imoveis")
@@ -28,37 +47,122 @@ public class ImoveisController {
     @Autowired
     private ImoveisServices service;
 
+    @Autowired
+    private ImportacaoImoveisServices importacaoServices;
+
     /* @GetMapping
     public ResponseEntity<List<ImoveisListDTO>> getAll() { // Retorna DTOs
         List<ImoveisListDTO> lista = service.getAll(); // Chama o serviço que retorna DTOs
         return ResponseEntity.status(HttpStatus.OK).body(lista);
     } */
 
+    // Com ?total=false a página é retornada sem o COUNT(*) (Slice: só informa se há próxima)
     @GetMapping("/imoveis-page")
-    public Page<ImoveisListDTO> getPosts(Pageable pageable) { // Retorna Page de DTOs
+    public Slice<ImoveisListDTO> getPosts(Pageable pageable,
+            @RequestParam(defaultValue = "true") boolean total) { // Page de DTOs, ou Slice com total=false
+        if (!total) {
+            return service.getSlice(pageable);
+        }
         return service.getAll(pageable); // Chama o serviço que retorna Page de DTOs
     }
 
+    /**
+     * Busca com múltiplos filtros (GET /imoveis/search?bairroId=1&status=DISPONIVEL&precoVendaMax=500000&dormitoriosMin=2...)
+     * Todos os filtros são opcionais e combinados com AND; aceita os parâmetros de paginação (page, size, sort).
+     * Com ?q=termos filtra também por palavras-chave (título, descrição, características); sem sort,
+     * o resultado vem ordenado por relevância.
+     */
+    @GetMapping("/search")
+    public Page<ImoveisListDTO> buscar(@ModelAttribute ImoveisFiltroDTO filtro, Pageable pageable) {
+        return service.buscar(filtro, pageable);
+    }
+
+    /**
+     * Busca facetada em memória (GET /imoveis/facetas?bairroId=1&bairroId=2&status=DISPONIVEL&dormitorios=3)
+     * Valores repetidos de um mesmo filtro são combinados com OR; filtros diferentes com AND.
+     * Retorna também a contagem de imóveis por bairro, tipo, status, finalidade e dormitórios.
+     */
+    @GetMapping("/facetas")
+    public ResponseEntity<?> buscarFacetas(
+            @RequestParam(required = false) List<String> bairroId,
+            @RequestParam(required = false) List<String> tipoImovelId,
+            @RequestParam(required = false) List<String> status,
+            @RequestParam(required = false) List<String> finalidade,
+            @RequestParam(required = false) List<String> dormitorios,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        if (page < 0 || size < 1 || size > 100) {
+            return ResponseEntity.badRequest().body("Parâmetros de paginação inválidos (size entre 1 e 100).");
+        }
+        Map<String, List<String>> filtros = new HashMap<>();
+        filtros.put(ImoveisFacetasServices.BAIRRO, bairroId);
+        filtros.put(ImoveisFacetasServices.TIPO, tipoImovelId);
+        filtros.put(ImoveisFacetasServices.STATUS, status);
+        filtros.put(ImoveisFacetasServices.FINALIDADE, finalidade);
+        filtros.put(ImoveisFacetasServices.DORMITORIOS, dormitorios);
+
+        ImoveisFacetasDTO resultado = service.buscarFacetas(filtros, page, size);
+        return ResponseEntity.ok(resultado);
+    }
+
+    /**
+     * Paginação por cursor (GET /imoveis/imoveis-cursor?after=...&size=20&total=false&sort=preco_venda,asc).
+     * O "after" é o token "proximoCursor" devolvido na página anterior, e vale só para o mesmo sort.
+     * Sort aceito: id, preco_venda, preco_aluguel ou area_total, com asc ou desc (padrão: id,desc).
+     */
+    @GetMapping("/imoveis-cursor")
+    public ResponseEntity<?> getPorCursor(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean total,
+            @RequestParam(defaultValue = "id,desc") String sort) {
+        if (size < 1 || size > 100) {
+            return ResponseEntity.badRequest().body("O parâmetro size deve estar entre 1 e 100.");
+        }
+        try {
+            ImoveisCursorDTO pagina = service.getPorCursor(after, size, total, sort);
+            return ResponseEntity.ok(pagina);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ImoveisListDTO> getById(@PathVariable Integer id) {
-        ImoveisModel model = service.find(id);
-        if (model != null) {
-            ImoveisListDTO dto = new ImoveisListDTO(model);
+        ImoveisListDTO dto = service.getById(id);
+        if (dto != null) {
             return ResponseEntity.status(HttpStatus.OK).body(dto);
         } else {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
         }
     }
 
+    // Página de detalhe: imóvel + fotos ordenadas em uma única requisição (substitui
+    // GET /imoveis/{id} seguido de GET /fotos-imoveis/imoveis/{id})
+    @GetMapping("/{id}/detalhes")
+    public ResponseEntity<ImoveisDetalheDTO> getDetalhes(@PathVariable Integer id) {
+        ImoveisDetalheDTO dto = service.getDetalhes(id);
+        if (dto == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.status(HttpStatus.OK).body(dto);
+    }
+
     // --- MÉTODO GET ALL CORRIGIDO ---
     @GetMapping // GET /imoveis
-    public ResponseEntity<List<ImoveisListDTO>> getAllImoveis(HttpSession session) { // <-- Tipo de retorno é DTO
+    public ResponseEntity<List<ImoveisListDTO>> getAllImoveis(HttpSession session, WebRequest request) { // <-- Tipo de retorno é DTO
         Object usuarioLogadoObj = session.getAttribute("usuarioLogado");
         // Se o usuário não estiver logado, ainda pode ver a lista (se quiser restringir, adicione verificação)
         // if (usuarioLogadoObj == null) {
         //     return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         // }
 
+        // GET condicional: responde 304 sem carregar os imóveis se a coleção não mudou
+        VersaoColecaoDTO versao = service.getVersao();
+        if (request.checkNotModified(versao.getEtag("imoveis"), versao.getUltimaModificacao())) {
+            return null;
+        }
+
         // Buscar todos os imóveis como DTOs (o service já converte)
         List<ImoveisListDTO> dtos = service.getAll(); // <-- ✅ Chamando o método correto que retorna DTOs!
 
@@ -66,6 +170,18 @@ public class ImoveisController {
         return ResponseEntity.ok(dtos); // <-- Retorna diretamente a lista de DTOs
     }
 
+    /**
+     * Exportação do catálogo completo em NDJSON (GET /imoveis/stream).
+     * O corpo é escrito incrementalmente, sem montar a lista em memória.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportarImoveis() {
+        StreamingResponseBody body = out -> service.exportarNdjson(out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     @GetMapping("/meus") // GET /imoveis/meus
     public ResponseEntity<List<ImoveisListDTO>> getMeusImoveis(HttpSession session) {
         Object usuarioLogadoObj = session.getAttribute("usuarioLogado");
@@ -74,13 +190,8 @@ public class ImoveisController {
         }
         UserModel usuarioLogado = (UserModel) usuarioLogadoObj;
 
-        // Chama o service para buscar imóveis do usuário logado
-        List<ImoveisModel> meusImoveis = service.buscarPorUsuarioId(usuarioLogado.getId());
-
-        // Converter para DTOs antes de retornar
-        List<ImoveisListDTO> dtos = meusImoveis.stream()
-                .map(ImoveisListDTO::new)
-                .collect(Collectors.toList());
+        // Chama o service para buscar imóveis do usuário logado (já retorna DTOs)
+        List<ImoveisListDTO> dtos = service.buscarPorUsuarioId(usuarioLogado.getId());
 
         return ResponseEntity.ok(dtos); // Retorna a lista de DTOs
     }
@@ -113,30 +224,80 @@ public class ImoveisController {
         return ResponseEntity.created(uri).build();
     }
 
-    @PutMapping("/{id}")
-    public ResponseEntity<ImoveisModel> update(@PathVariable Integer id, @RequestBody ImoveisDTO dto,
-            HttpSession session) {
+    /**
+     * Importação em lote (POST /imoveis/importar), com o arquivo no corpo da requisição:
+     * text/csv (cabeçalho com os campos de ImoveisDTO, separado por ',' ou ';') ou
+     * application/json / application/x-ndjson. Corretor só importa imóveis próprios.
+     * Retorna o resumo com os erros por linha; as linhas válidas são gravadas mesmo que outras falhem.
+     */
+    @PostMapping(value = "/importar", consumes = { "text/csv", MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<?> importar(HttpServletRequest request, HttpSession session) {
         UserModel usuarioLogado = (UserModel) session.getAttribute("usuarioLogado");
         if (usuarioLogado == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        ImoveisModel imovelExistente = service.find(id);
-        if (imovelExistente == null) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        try {
+            ResultadoImportacaoDTO resultado;
+            if (MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.parseMediaType("text/csv"))) {
+                Charset charset = request.getCharacterEncoding() != null
+                        ? Charset.forName(request.getCharacterEncoding())
+                        : StandardCharsets.UTF_8;
+                resultado = importacaoServices.importarCsv(request.getInputStream(), charset, usuarioLogado);
+            } else {
+                resultado = importacaoServices.importarJson(request.getInputStream(), usuarioLogado);
+            }
+            HttpStatus status = resultado.getImportados() > 0 || resultado.getTotalLinhas() == 0
+                    ? HttpStatus.OK : HttpStatus.BAD_REQUEST;
+            return ResponseEntity.status(status).body(resultado);
+        } catch (IOException e) {
+            // Arquivo malformado (JSON inválido, aspas não fechadas): as linhas anteriores já foram gravadas
+            System.err.println("Erro na importação de imóveis: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Arquivo inválido: " + e.getMessage());
         }
+    }
 
-        // Verificar permissão: Admin pode editar qualquer um, Corretor só o próprio
-        if (!usuarioLogado.getTipo().equals(UserModel.Tipo.ADMIN) &&
-                !imovelExistente.getUsuario().getId().equals(usuarioLogado.getId())) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    /**
+     * Alteração em lote (PATCH /imoveis/lote) de status, destaque e preços (reajuste percentual),
+     * para uma lista de IDs ou para os imóveis que atendem aos filtros da busca.
+     * Corretor só altera os próprios imóveis. Retorna quantos imóveis foram alterados.
+     */
+    @PatchMapping("/lote")
+    public ResponseEntity<?> atualizarEmLote(@RequestBody AtualizacaoLoteImoveisDTO dto, HttpSession session) {
+        UserModel usuarioLogado = (UserModel) session.getAttribute("usuarioLogado");
+        if (usuarioLogado == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        try {
+            int alterados = service.atualizarEmLote(dto, usuarioLogado);
+            Map<String, Integer> resposta = new HashMap<>();
+            resposta.put("atualizados", alterados);
+            return ResponseEntity.ok(resposta);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<ImoveisModel> update(@PathVariable Integer id, @RequestBody ImoveisDTO dto,
+            HttpSession session) {
+        UserModel usuarioLogado = (UserModel) session.getAttribute("usuarioLogado");
+        if (usuarioLogado == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        ImoveisModel model = service.update(id, dto);
-        if (model != null) {
+        // A busca, a verificação de permissão (Admin edita qualquer um, Corretor só o próprio)
+        // e o UPDATE acontecem no service, com uma única leitura do imóvel
+        try {
+            ImoveisModel model = service.update(id, dto, usuarioLogado);
+            if (model == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            }
             return ResponseEntity.status(HttpStatus.OK).body(model);
-        } else {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        } catch (AcessoNegadoException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
     }
 
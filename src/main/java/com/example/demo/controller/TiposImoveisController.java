@@ -2,11 +2,13 @@ package com.example.demo.controller;
 
 import com.example.demo.dto.TiposImoveisDTO;
 import com.example.demo.model.TiposImoveisModel;
+import com.example.demo.dto.VersaoColecaoDTO;
 import com.example.demo.services.TiposImoveisServices;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -23,7 +25,13 @@ public class TiposImoveisController {
     private TiposImoveisServices service;
 
     @GetMapping
-    public ResponseEntity<List<TiposImoveisModel>> getAll() {
+    public ResponseEntity<List<TiposImoveisModel>> getAll(WebRequest request) {
+        // GET condicional: se o cliente já tem a versão atual (If-None-Match/If-Modified-Since),
+        // o Spring responde 304 sem corpo e a lista nem é carregada
+        VersaoColecaoDTO versao = service.getVersao();
+        if (request.checkNotModified(versao.getEtag("tipos-imoveis"), versao.getUltimaModificacao())) {
+            return null;
+        }
         List<TiposImoveisModel> lista = service.getAll();
         return ResponseEntity.status(HttpStatus.OK).body(lista);
     }
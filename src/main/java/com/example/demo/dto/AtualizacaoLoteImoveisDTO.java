@@ -0,0 +1,29 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.ImoveisModel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Alteração em lote de imóveis (PATCH /imoveis/lote).
+ * Os imóveis são escolhidos pela lista de IDs ou, se ela vier vazia, pelos filtros da busca.
+ * Somente as alterações preenchidas são aplicadas.
+ */
+@Getter
+@Setter
+public class AtualizacaoLoteImoveisDTO {
+    // Seleção
+    private List<Integer> ids;
+    private ImoveisFiltroDTO filtro;
+
+    // Alterações
+    private ImoveisModel.Status status;
+    private Boolean destaque;
+    private BigDecimal percentualVenda;   // Reajuste do preço de venda em % (ex: 10 = +10%, -5 = -5%)
+    private BigDecimal percentualAluguel; // Reajuste do preço de aluguel em %
+
+    public AtualizacaoLoteImoveisDTO() {}
+}
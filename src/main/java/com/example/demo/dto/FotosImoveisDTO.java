@@ -22,6 +22,10 @@ public class FotosImoveisDTO {
     private Integer ordem;
     // ID do imóvel ao qual a foto pertence
     private Integer imovelId;
+    // Versões redimensionadas (null enquanto o processamento não terminar); só leitura
+    private String caminho_thumb;
+    private String caminho_card;
+    private String caminho_full;
 
     public FotosImoveisDTO(Integer id, String nome_arquivo, String caminho, Boolean capa, Integer ordem, Integer imovelId) {
         this.id = id;
@@ -31,6 +35,15 @@ public class FotosImoveisDTO {
         this.ordem = ordem;
         this.imovelId = imovelId;
     }
+
+    // Construtor usado pelas consultas de projeção (SELECT new ...) do FotosImoveisRepository
+    public FotosImoveisDTO(Integer id, String nome_arquivo, String caminho, Boolean capa, Integer ordem, Integer imovelId,
+                           String caminho_thumb, String caminho_card, String caminho_full) {
+        this(id, nome_arquivo, caminho, capa, ordem, imovelId);
+        this.caminho_thumb = caminho_thumb;
+        this.caminho_card = caminho_card;
+        this.caminho_full = caminho_full;
+    }
 }
 /* 
 A anotação @Data é um atalho que inclui:
@@ -0,0 +1,29 @@
+package com.example.demo.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * DTO de resposta da paginação por cursor (keyset) da listagem de imóveis.
+ * O total só é preenchido quando solicitado, pois exige um COUNT(*) na tabela.
+ */
+@Getter
+@Setter
+public class ImoveisCursorDTO {
+
+    private List<ImoveisListDTO> conteudo;
+    private String proximoCursor;  // Token para o parâmetro "after" da próxima página (null se acabou)
+    private boolean temMais;
+    private Long totalElementos;   // null quando o total não foi solicitado
+
+    public ImoveisCursorDTO() {}
+
+    public ImoveisCursorDTO(List<ImoveisListDTO> conteudo, String proximoCursor, boolean temMais, Long totalElementos) {
+        this.conteudo = conteudo;
+        this.proximoCursor = proximoCursor;
+        this.temMais = temMais;
+        this.totalElementos = totalElementos;
+    }
+}
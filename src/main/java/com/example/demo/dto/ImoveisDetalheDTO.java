@@ -0,0 +1,30 @@
+package com.example.demo.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * DTO da página de detalhe do imóvel (GET /imoveis/{id}/detalhes): os dados da listagem
+ * (com tipo, bairro e proprietário) e as fotos na ordem de exibição.
+ */
+@Getter
+@Setter
+public class ImoveisDetalheDTO {
+
+    private ImoveisListDTO imovel;
+    private List<FotosImoveisDTO> fotos;
+    private FotosImoveisDTO capa; // Foto marcada como capa (ou a primeira, se nenhuma estiver marcada)
+
+    public ImoveisDetalheDTO() {}
+
+    public ImoveisDetalheDTO(ImoveisListDTO imovel, List<FotosImoveisDTO> fotos) {
+        this.imovel = imovel;
+        this.fotos = fotos;
+        this.capa = fotos.stream()
+                .filter(foto -> Boolean.TRUE.equals(foto.getCapa()))
+                .findFirst()
+                .orElse(fotos.isEmpty() ? null : fotos.get(0));
+    }
+}
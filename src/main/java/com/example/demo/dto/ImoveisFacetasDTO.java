@@ -0,0 +1,30 @@
+package com.example.demo.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO de resposta da busca facetada (GET /imoveis/facetas).
+ * "facetas" traz, para cada faceta, a contagem de imóveis por valor
+ * (ex: {"bairro": {"1": 120, "2": 45}, "status": {"DISPONIVEL": 150}}).
+ */
+@Getter
+@Setter
+public class ImoveisFacetasDTO {
+
+    private int total;                                  // Total de imóveis que atendem aos filtros
+    private List<Integer> ids;                          // IDs da página solicitada (mais recentes primeiro)
+    private List<ImoveisListDTO> conteudo;              // Imóveis da página solicitada
+    private Map<String, Map<String, Integer>> facetas;  // Contagem por faceta/valor
+
+    public ImoveisFacetasDTO() {}
+
+    public ImoveisFacetasDTO(int total, List<Integer> ids, Map<String, Map<String, Integer>> facetas) {
+        this.total = total;
+        this.ids = ids;
+        this.facetas = facetas;
+    }
+}
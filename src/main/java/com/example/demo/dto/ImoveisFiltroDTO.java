@@ -0,0 +1,33 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.ImoveisModel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO com os filtros da busca de imóveis (GET /imoveis/search).
+ * Todos os campos são opcionais; somente os preenchidos entram na consulta.
+ */
+@Getter
+@Setter
+public class ImoveisFiltroDTO {
+    private Integer bairroId;
+    private Integer tipoImovelId;
+    private ImoveisModel.Status status;
+    private ImoveisModel.Finalidade finalidade;
+    private BigDecimal precoVendaMin;
+    private BigDecimal precoVendaMax;
+    private BigDecimal precoAluguelMin;
+    private BigDecimal precoAluguelMax;
+    private Integer dormitoriosMin;
+    private Integer banheirosMin;
+    private Integer garagemMin;
+    private BigDecimal areaMin;     // Área total mínima
+    private BigDecimal areaMax;     // Área total máxima
+    private Boolean destaque;
+    private String q;               // Palavras-chave (título, descrição, características)
+
+    public ImoveisFiltroDTO() {}
+}
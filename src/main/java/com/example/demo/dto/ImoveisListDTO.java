@@ -44,8 +44,51 @@ public class ImoveisListDTO {
     private String nome_usuario;     // Nome do proprietário
     private String email_usuario;    // Email do proprietário
 
+    // Foto de capa (preenchida pelo ImoveisServices com uma consulta para a página inteira)
+    private String capa_caminho;      // Original
+    private String capa_caminho_card; // Versão do card (480px); o original enquanto ela não for gerada
+
     public ImoveisListDTO() {}
 
+    // Construtor usado pelas consultas de projeção (SELECT new ...) do ImoveisRepository.
+    // Recebe os campos já "achatados" pelos JOINs, evitando carregar os relacionamentos LAZY um a um.
+    public ImoveisListDTO(Integer id, String titulo, String descricao, BigDecimal preco_venda, BigDecimal preco_aluguel,
+                          ImoveisModel.Finalidade finalidade, ImoveisModel.Status status, Integer dormitorios,
+                          Integer banheiros, Integer garagem, BigDecimal area_total, BigDecimal area_construida,
+                          String endereco, String numero, String complemento, String cep, String caracteristicas,
+                          Boolean destaque,
+                          Integer id_tipo_imovel, String nome_tipo_imovel,
+                          Integer id_bairro, String nome_bairro, String cidade_bairro, String estado_bairro,
+                          Integer id_usuario, String nome_usuario, String email_usuario) {
+        this.id = id;
+        this.titulo = titulo;
+        this.descricao = descricao;
+        this.preco_venda = preco_venda;
+        this.preco_aluguel = preco_aluguel;
+        this.finalidade = finalidade;
+        this.status = status;
+        this.dormitorios = dormitorios;
+        this.banheiros = banheiros;
+        this.garagem = garagem;
+        this.area_total = area_total;
+        this.area_construida = area_construida;
+        this.endereco = endereco;
+        this.numero = numero;
+        this.complemento = complemento;
+        this.cep = cep;
+        this.caracteristicas = caracteristicas;
+        this.destaque = destaque;
+        this.id_tipo_imovel = id_tipo_imovel;
+        this.nome_tipo_imovel = nome_tipo_imovel;
+        this.id_bairro = id_bairro;
+        this.nome_bairro = nome_bairro;
+        this.cidade_bairro = cidade_bairro;
+        this.estado_bairro = estado_bairro;
+        this.id_usuario = id_usuario;
+        this.nome_usuario = nome_usuario;
+        this.email_usuario = email_usuario;
+    }
+
     // Construtor para criar o DTO a partir do Model e dos dados dos relacionamentos
     public ImoveisListDTO(ImoveisModel imovel) {
         this.id = imovel.getId();
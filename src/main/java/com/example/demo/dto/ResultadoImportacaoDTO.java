@@ -0,0 +1,35 @@
+package com.example.demo.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado da importação em lote de imóveis (POST /imoveis/importar).
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class ResultadoImportacaoDTO {
+    private long totalLinhas; // Registros lidos (sem contar o cabeçalho do CSV)
+    private long importados;
+    private long comErro;
+    private List<ErroLinha> erros = new ArrayList<>(); // Limitado; comErro tem o total
+    private long duracaoMs;
+
+    @NoArgsConstructor
+    @Getter
+    @Setter
+    public static class ErroLinha {
+        private long linha; // No CSV conta o cabeçalho como linha 1; no JSON é a posição do objeto (1, 2, ...)
+        private String mensagem;
+
+        public ErroLinha(long linha, String mensagem) {
+            this.linha = linha;
+            this.mensagem = mensagem;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.demo.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Resultado de um arquivo no upload em lote (POST /fotos-imoveis/lote).
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class ResultadoUploadDTO {
+    private String arquivo; // Nome original enviado pelo cliente
+    private boolean sucesso;
+    private Integer id; // ID da foto criada (quando sucesso)
+    private String caminho;
+    private String erro; // Motivo da falha (quando não houve sucesso)
+
+    public static ResultadoUploadDTO sucesso(String arquivo, Integer id, String caminho) {
+        ResultadoUploadDTO resultado = new ResultadoUploadDTO();
+        resultado.setArquivo(arquivo);
+        resultado.setSucesso(true);
+        resultado.setId(id);
+        resultado.setCaminho(caminho);
+        return resultado;
+    }
+
+    public static ResultadoUploadDTO erro(String arquivo, String erro) {
+        ResultadoUploadDTO resultado = new ResultadoUploadDTO();
+        resultado.setArquivo(arquivo);
+        resultado.setSucesso(false);
+        resultado.setErro(erro);
+        return resultado;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.demo.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * "Impressão digital" barata de uma coleção (quantidade de registros + última atualização),
+ * usada para responder GETs condicionais (ETag / Last-Modified) sem carregar os registros.
+ * Qualquer insert, update ou delete altera o total ou a última atualização.
+ */
+@Getter
+@Setter
+public class VersaoColecaoDTO {
+
+    private Long total;
+    private Instant ultimaAtualizacao;
+
+    public VersaoColecaoDTO() {}
+
+    // Construtor usado pelas consultas "SELECT new ... (COUNT(x), MAX(x.atualizadoEm))" dos repositórios
+    public VersaoColecaoDTO(Long total, Instant ultimaAtualizacao) {
+        this.total = total;
+        this.ultimaAtualizacao = ultimaAtualizacao;
+    }
+
+    /**
+     * Junta as versões de várias coleções (ex: imóveis e as tabelas cujos dados aparecem na listagem).
+     * Soma os totais e fica com a última atualização: um insert ou update em qualquer uma avança a data,
+     * e um delete diminui a soma.
+     *
+     * @param partes As versões de cada coleção.
+     * @return A versão combinada.
+     */
+    public static VersaoColecaoDTO combinar(VersaoColecaoDTO... partes) {
+        long total = 0;
+        Instant ultima = null;
+        for (VersaoColecaoDTO parte : partes) {
+            total += parte.getTotal() != null ? parte.getTotal() : 0;
+            if (parte.getUltimaAtualizacao() != null
+                    && (ultima == null || parte.getUltimaAtualizacao().isAfter(ultima))) {
+                ultima = parte.getUltimaAtualizacao();
+            }
+        }
+        return new VersaoColecaoDTO(total, ultima);
+    }
+
+    /**
+     * Gera a ETag forte da coleção.
+     *
+     * @param prefixo O nome da coleção (para ETags de recursos diferentes não coincidirem).
+     * @return A ETag entre aspas, ex: "imoveis-120-1718000000000".
+     */
+    public String getEtag(String prefixo) {
+        return "\"" + prefixo + "-" + total + "-" + getUltimaModificacao() + "\"";
+    }
+
+    // Última atualização em milissegundos (-1 quando não há registros com data)
+    public long getUltimaModificacao() {
+        return ultimaAtualizacao != null ? ultimaAtualizacao.toEpochMilli() : -1;
+    }
+}
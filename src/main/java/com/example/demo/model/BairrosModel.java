@@ -6,7 +6,14 @@ import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
 import lombok.Setter;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.UpdateTimestamp;
+
 import java.io.Serializable;
+
+import com.example.demo.config.GeradoresIdConfig;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -15,6 +22,8 @@ import com.fasterxml.jackson.annotation.JsonManagedReference;
 
 @Entity
 @Table(name = "bairros")
+@Cacheable // Dado de referência: fica no cache de segundo nível do Hibernate
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 public class BairrosModel implements Serializable {
@@ -22,7 +31,10 @@ public class BairrosModel implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "bairros_id")
+    @TableGenerator(name = "bairros_id", table = GeradoresIdConfig.TABELA,
+            pkColumnName = "entidade", valueColumnName = "proximo_valor", pkColumnValue = "bairros",
+            allocationSize = GeradoresIdConfig.ALOCACAO) // IDs em blocos: permite INSERTs em lote
     private Integer id;
 
     @NotBlank(message = "Nome é obrigatório")
@@ -37,6 +49,10 @@ public class BairrosModel implements Serializable {
     private String cep_inicial;
     private String cep_final;
 
+    // Atualizado pelo Hibernate a cada insert/update; compõe a ETag da coleção (VersaoColecaoDTO)
+    @UpdateTimestamp
+    private Instant atualizadoEm;
+
     // Relacionamento com Imóveis (um bairro pode ter muitos imóveis)
     @OneToMany(mappedBy = "bairro", orphanRemoval = false, cascade = {CascadeType.PERSIST, CascadeType.MERGE}, fetch = FetchType.LAZY)
     //@JsonManagedReference("bairro-imovel") 
@@ -0,0 +1,60 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+/**
+ * Arquivo de foto armazenado pelo conteúdo (SHA-256). Fotos idênticas enviadas para
+ * vários imóveis apontam para o mesmo blob; o arquivo só é apagado quando a última
+ * foto que o referencia é excluída.
+ */
+@Entity
+@Table(name = "blobs_fotos")
+@Getter
+@Setter
+public class BlobFotoModel implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(length = 64)
+    private String hash; // SHA-256 em hexadecimal
+
+    @Column(nullable = false)
+    private String caminho; // Caminho relativo ao uploadDir (ex: blobs/ab/cd/<hash>.jpg)
+
+    private Long tamanho; // Em bytes
+
+    @Column(nullable = false)
+    private Integer referencias = 0; // Quantidade de fotos que usam este arquivo
+
+    @CreationTimestamp
+    private Instant criadoEm;
+
+    public BlobFotoModel() {}
+
+    public BlobFotoModel(String hash, String caminho, Long tamanho) {
+        this.hash = hash;
+        this.caminho = caminho;
+        this.tamanho = tamanho;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash == null ? 0 : hash.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        BlobFotoModel other = (BlobFotoModel) obj;
+        return hash != null && hash.equals(other.hash);
+    }
+}
@@ -8,19 +8,27 @@ import lombok.Setter;
 
 import java.io.Serializable;
 
+import com.example.demo.config.GeradoresIdConfig;
+
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 @Entity
-@Table(name = "fotos_imovel")
+// Índice da busca das capas da listagem (ImoveisServices.preencherCapas)
+@Table(name = "fotos_imovel", indexes = @Index(name = "idx_fotos_imovel_capa", columnList = "imovel_id, capa"))
 @Getter
 @Setter
 public class FotosImoveisModel implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    // IDs reservados em blocos (tabela id_geradores, ver GeradoresIdConfig): com IDENTITY o
+    // Hibernate precisa de um INSERT por vez para saber o ID, e o upload em lote não teria batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "fotos_imovel_id")
+    @TableGenerator(name = "fotos_imovel_id", table = GeradoresIdConfig.TABELA,
+            pkColumnName = "entidade", valueColumnName = "proximo_valor", pkColumnValue = "fotos_imovel",
+            allocationSize = GeradoresIdConfig.ALOCACAO)
     private Integer id;
 
     @NotBlank(message = "Nome do arquivo é obrigatório")
@@ -29,11 +37,21 @@ public class FotosImoveisModel implements Serializable {
     @NotBlank(message = "Caminho da foto é obrigatório")
     private String caminho; // URL da foto
 
+    // SHA-256 do conteúdo (BlobFotoModel); null em fotos anteriores ao armazenamento por conteúdo
+    @Column(length = 64)
+    private String hash;
+
     private Boolean capa = false; // Se é a foto principal/capa
 
     @NotNull(message = "Ordem é obrigatória")
     private Integer ordem; // Ordem de exibição
 
+    // Versões redimensionadas geradas no upload (caminhos relativos ao uploadDir, como o "caminho").
+    // Ficam null quando o formato do original não é suportado; nesse caso usa-se o original.
+    private String caminho_thumb; // Miniatura (200px)
+    private String caminho_card;  // Card da listagem (480px)
+    private String caminho_full;  // Página de detalhe (1280px)
+
     // Relacionamento com Imóveis (muitas fotos para um imóvel)
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "imovel_id", nullable = false)
@@ -51,6 +69,24 @@ public class FotosImoveisModel implements Serializable {
         this.ordem = ordem;
     }
 
+    /**
+     * Retorna o caminho da versão solicitada, caindo para o original se a derivada não existir.
+     *
+     * @param tamanho "thumb", "card", "full" ou null para o original.
+     * @return O caminho relativo ao uploadDir.
+     */
+    public String caminhoDoTamanho(String tamanho) {
+        String derivada = null;
+        if ("thumb".equalsIgnoreCase(tamanho)) {
+            derivada = caminho_thumb;
+        } else if ("card".equalsIgnoreCase(tamanho)) {
+            derivada = caminho_card;
+        } else if ("full".equalsIgnoreCase(tamanho)) {
+            derivada = caminho_full;
+        }
+        return derivada != null ? derivada : caminho;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
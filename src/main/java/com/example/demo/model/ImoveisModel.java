@@ -5,10 +5,16 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
 import lombok.Setter;
+
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.UpdateTimestamp;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
 import java.io.Serializable;
+
+import com.example.demo.config.GeradoresIdConfig;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
@@ -18,7 +24,20 @@ import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 @Entity
-@Table(name = "imoveis")
+// Índices compostos para as combinações de filtro mais comuns da busca (ImoveisSpecifications).
+// As colunas de igualdade vêm primeiro e a de intervalo (preço) por último.
+@Table(name = "imoveis", indexes = {
+        @Index(name = "idx_imoveis_status_finalidade_venda", columnList = "status, finalidade, preco_venda"),
+        @Index(name = "idx_imoveis_status_finalidade_aluguel", columnList = "status, finalidade, preco_aluguel"),
+        @Index(name = "idx_imoveis_bairro_status", columnList = "bairro_id, status"),
+        @Index(name = "idx_imoveis_tipo_status", columnList = "tipo_imovel_id, status"),
+        @Index(name = "idx_imoveis_status_dormitorios", columnList = "status, dormitorios"),
+        // Paginação por cursor ordenada por preço/área (o InnoDB completa cada índice com o id)
+        @Index(name = "idx_imoveis_preco_venda", columnList = "preco_venda"),
+        @Index(name = "idx_imoveis_preco_aluguel", columnList = "preco_aluguel"),
+        @Index(name = "idx_imoveis_area_total", columnList = "area_total")
+})
+@DynamicUpdate // O UPDATE leva só as colunas alteradas (a descrição TEXT não é reenviada à toa)
 @Getter
 @Setter
 public class ImoveisModel implements Serializable {
@@ -26,7 +45,10 @@ public class ImoveisModel implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "imoveis_id")
+    @TableGenerator(name = "imoveis_id", table = GeradoresIdConfig.TABELA,
+            pkColumnName = "entidade", valueColumnName = "proximo_valor", pkColumnValue = "imoveis",
+            allocationSize = GeradoresIdConfig.ALOCACAO) // IDs em blocos: permite INSERTs em lote
     private Integer id;
 
     @NotBlank(message = "Título é obrigatório")
@@ -80,6 +102,10 @@ public class ImoveisModel implements Serializable {
 
     private Boolean destaque = false;
 
+    // Atualizado pelo Hibernate a cada insert/update; compõe a ETag da coleção (VersaoColecaoDTO)
+    @UpdateTimestamp
+    private Instant atualizadoEm;
+
     // Relacionamento com Tipos de Imóveis (muitos imóveis para um tipo)
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "tipo_imovel_id")
@@ -0,0 +1,83 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+import com.example.demo.config.GeradoresIdConfig;
+import java.time.Instant;
+
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+/**
+ * Job de processamento (geração das versões redimensionadas) de uma foto de imóvel.
+ * Fica gravado no banco para que jobs pendentes sejam retomados após um restart.
+ */
+@Entity
+@Table(name = "processamento_fotos", indexes = {
+        @Index(name = "idx_processamento_fotos_status", columnList = "status")
+})
+@Getter
+@Setter
+public class ProcessamentoFotoModel implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "processamento_fotos_id")
+    @TableGenerator(name = "processamento_fotos_id", table = GeradoresIdConfig.TABELA,
+            pkColumnName = "entidade", valueColumnName = "proximo_valor", pkColumnValue = "processamento_fotos",
+            allocationSize = GeradoresIdConfig.ALOCACAO) // IDs em blocos: permite INSERTs em lote
+    private Integer id;
+
+    // ID da foto (FotosImoveisModel) a ser processada
+    @Column(name = "foto_id", nullable = false, unique = true)
+    private Integer fotoId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status = Status.PENDENTE;
+
+    private Integer tentativas = 0;
+
+    @Column(length = 1000)
+    private String erro; // Mensagem do último erro, se houver
+
+    // Quando o job foi reservado por um nó (status PROCESSANDO); passado o prazo, outro nó pode retomá-lo
+    private Instant processandoDesde;
+
+    @CreationTimestamp
+    private Instant criadoEm;
+
+    @UpdateTimestamp
+    private Instant atualizadoEm;
+
+    public enum Status {
+        PENDENTE, PROCESSANDO, CONCLUIDO, ERRO
+    }
+
+    public ProcessamentoFotoModel() {}
+
+    public ProcessamentoFotoModel(Integer fotoId) {
+        this.fotoId = fotoId;
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + ((id == null) ? 0 : id.hashCode());
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        ProcessamentoFotoModel other = (ProcessamentoFotoModel) obj;
+        return id != null && id.equals(other.id);
+    }
+}
@@ -6,7 +6,14 @@ import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
 import lombok.Setter;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.UpdateTimestamp;
+
 import java.io.Serializable;
+
+import com.example.demo.config.GeradoresIdConfig;
+import java.time.Instant;
 import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -14,6 +21,8 @@ import com.fasterxml.jackson.annotation.JsonManagedReference;
 
 @Entity
 @Table(name = "tipos_imoveis")
+@Cacheable // Dado de referência: fica no cache de segundo nível do Hibernate
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 public class TiposImoveisModel implements Serializable {
@@ -21,7 +30,10 @@ public class TiposImoveisModel implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "tipos_imoveis_id")
+    @TableGenerator(name = "tipos_imoveis_id", table = GeradoresIdConfig.TABELA,
+            pkColumnName = "entidade", valueColumnName = "proximo_valor", pkColumnValue = "tipos_imoveis",
+            allocationSize = GeradoresIdConfig.ALOCACAO) // IDs em blocos: permite INSERTs em lote
     private Integer id;
 
     @NotBlank(message = "Nome é obrigatório")
@@ -30,6 +42,10 @@ public class TiposImoveisModel implements Serializable {
     @Column(columnDefinition = "TEXT")
     private String descricao;
 
+    // Atualizado pelo Hibernate a cada insert/update; compõe a ETag da coleção (VersaoColecaoDTO)
+    @UpdateTimestamp
+    private Instant atualizadoEm;
+
     // Relacionamento com Imóveis (um tipo pode ter muitos imóveis)
     @OneToMany(mappedBy = "tipoImovel", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     //@JsonManagedReference
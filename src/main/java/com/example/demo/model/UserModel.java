@@ -8,6 +8,7 @@ import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
@@ -17,6 +18,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -24,17 +26,30 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
+
+import com.example.demo.config.GeradoresIdConfig;
+
 @Entity
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(name = "usuarios")
+@Cacheable // Lido em toda escrita de imóvel (proprietário); fica no cache de segundo nível
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class UserModel implements Serializable {
     
     private static final long serialVersionUID = 1L;
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "usuarios_id")
+    @TableGenerator(name = "usuarios_id", table = GeradoresIdConfig.TABELA,
+            pkColumnName = "entidade", valueColumnName = "proximo_valor", pkColumnValue = "usuarios",
+            allocationSize = GeradoresIdConfig.ALOCACAO) // IDs em blocos: permite INSERTs em lote
     private Integer id;
     private String nome;
     private String email;
@@ -45,6 +60,11 @@ public class UserModel implements Serializable {
     @Enumerated(EnumType.STRING) // Salva o nome do enum como string no banco
     private Tipo tipo; // Adicione este campo
 
+    // Atualizado pelo Hibernate a cada insert/update; nome e e-mail aparecem na listagem de imóveis,
+    // então entra na ETag dela (ImoveisServices.getVersao)
+    @UpdateTimestamp
+    private Instant atualizadoEm;
+
     public enum Tipo {
         ADMIN, CORRETOR // Defina os tipos como enum
     }
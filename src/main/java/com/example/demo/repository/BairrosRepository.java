@@ -1,8 +1,32 @@
 package com.example.demo.repository;
 
+import com.example.demo.config.CacheConfig;
+import com.example.demo.dto.VersaoColecaoDTO;
 import com.example.demo.model.BairrosModel;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import jakarta.persistence.QueryHint;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_REGION;
+
+import java.util.List;
 
 public interface BairrosRepository extends JpaRepository<BairrosModel, Integer> {
+
+    // findAll com cache de consulta do Hibernate (invalidado automaticamente quando a tabela muda)
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<BairrosModel> findAll();
+
+    // Total + última atualização, para ETag/Last-Modified (cache de consulta na região VERSOES: não vai ao
+    // banco se a tabela não mudou nesta instância, e expira logo para enxergar as escritas das outras)
+    @Query("SELECT new com.example.demo.dto.VersaoColecaoDTO(COUNT(x), MAX(x.atualizadoEm)) FROM BairrosModel x")
+    @QueryHints({ @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = CacheConfig.VERSOES) })
+    VersaoColecaoDTO findVersao();
+
     // Ex: List<BairrosModel> findByCidade(String cidade);
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.BlobFotoModel;
+
+import jakarta.persistence.LockModeType;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface BlobFotoRepository extends JpaRepository<BlobFotoModel, String> {
+
+    // SELECT ... FOR UPDATE: trava a linha do blob até o fim da transação de quem chama, para a
+    // contagem de referências não se perder com várias instâncias gravando/removendo o mesmo arquivo
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM BlobFotoModel b WHERE b.hash = :hash")
+    Optional<BlobFotoModel> findParaAtualizar(@Param("hash") String hash);
+}
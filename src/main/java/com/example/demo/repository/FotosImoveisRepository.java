@@ -1,12 +1,54 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.FotosImoveisDTO;
 import com.example.demo.model.FotosImoveisModel;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface FotosImoveisRepository extends JpaRepository<FotosImoveisModel, Integer> {
     List<FotosImoveisModel> findByImovelId(Integer imovelId);
     List<FotosImoveisModel> findByImovelIdAndCapaTrue(Integer imovelId); // Foto de capa
     List<FotosImoveisModel> findByImovelIdOrderByOrdemAsc(Integer imovelId); // Ordenadas por ordem
-}
\ No newline at end of file
+    List<FotosImoveisModel> findByHashIsNull(); // Fotos ainda não migradas para os blobs
+
+    // Foto com o imóvel e o proprietário já carregados (verificação de permissão sem open-in-view)
+    @Query("SELECT f FROM FotosImoveisModel f JOIN FETCH f.imovel i LEFT JOIN FETCH i.usuario WHERE f.id = :id")
+    Optional<FotosImoveisModel> findComImovelEUsuarioById(@Param("id") Integer id);
+
+    // Fotos do imóvel direto no DTO, na ordem de exibição (sem ordem por último, empate pelo ID).
+    // f.imovel.id usa a própria coluna imovel_id, sem JOIN com imoveis.
+    String FOTOS_DTO_SELECT = "SELECT new com.example.demo.dto.FotosImoveisDTO("
+            + "f.id, f.nome_arquivo, f.caminho, f.capa, f.ordem, f.imovel.id, "
+            + "f.caminho_thumb, f.caminho_card, f.caminho_full) FROM FotosImoveisModel f";
+
+    @Query(value = FOTOS_DTO_SELECT, countQuery = "SELECT COUNT(f) FROM FotosImoveisModel f")
+    Page<FotosImoveisDTO> findAllDto(Pageable pageable);
+
+    @Query(FOTOS_DTO_SELECT + " WHERE f.id = :id")
+    Optional<FotosImoveisDTO> findDtoById(@Param("id") Integer id);
+
+    @Query(FOTOS_DTO_SELECT + " WHERE f.imovel.id = :imovelId ORDER BY f.ordem ASC NULLS LAST, f.id ASC")
+    List<FotosImoveisDTO> findDtoByImovelIdOrdenadas(@Param("imovelId") Integer imovelId);
+
+    // Capas dos imóveis de uma página de listagem: [imovelId, caminho, caminho_card].
+    // Se um imóvel tiver mais de uma capa marcada, a primeira na ordem de exibição vem antes.
+    @Query("SELECT f.imovel.id, f.caminho, f.caminho_card FROM FotosImoveisModel f "
+            + "WHERE f.imovel.id IN :imovelIds AND f.capa = true ORDER BY f.ordem ASC NULLS LAST, f.id ASC")
+    List<Object[]> findCapasByImovelIdIn(@Param("imovelIds") Collection<Integer> imovelIds);
+
+    // Grava os caminhos das versões redimensionadas (retorna 0 se a foto já foi excluída)
+    @Modifying
+    @Transactional
+    @Query("UPDATE FotosImoveisModel f SET f.caminho_thumb = :thumb, f.caminho_card = :card, f.caminho_full = :full WHERE f.id = :id")
+    int updateDerivadas(@Param("id") Integer id, @Param("thumb") String thumb,
+            @Param("card") String card, @Param("full") String full);
+}
@@ -1,16 +1,94 @@
 package com.example.demo.repository;
 
+import com.example.demo.config.CacheConfig;
+import com.example.demo.dto.ImoveisListDTO;
+import com.example.demo.dto.VersaoColecaoDTO;
 import com.example.demo.model.ImoveisModel;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import jakarta.persistence.QueryHint;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_REGION;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface ImoveisRepository extends JpaRepository<ImoveisModel, Integer> {
+public interface ImoveisRepository extends JpaRepository<ImoveisModel, Integer>, JpaSpecificationExecutor<ImoveisModel> {
 
     // O Spring Data JPA gera automaticamente os métodos básicos (findAll, findById, save, delete, etc.)
 
+    // --- CONSULTAS DE LISTAGEM (projeção direto para ImoveisListDTO) ---
+    // Montam o DTO em um único SELECT com os JOINs de tipo, bairro e usuário,
+    // sem passar pelas entidades (evita o N+1 dos relacionamentos LAZY).
+    // A paginação por cursor (ImoveisServices.getPorCursor) monta o WHERE/ORDER BY sobre este mesmo SELECT.
+    String LISTAGEM_SELECT = "SELECT new com.example.demo.dto.ImoveisListDTO("
+            + "i.id, i.titulo, i.descricao, i.preco_venda, i.preco_aluguel, i.finalidade, i.status, "
+            + "i.dormitorios, i.banheiros, i.garagem, i.area_total, i.area_construida, "
+            + "i.endereco, i.numero, i.complemento, i.cep, i.caracteristicas, i.destaque, "
+            + "t.id, t.nome, b.id, b.nome, b.cidade, b.estado, u.id, u.nome, u.email) "
+            + "FROM ImoveisModel i LEFT JOIN i.tipoImovel t LEFT JOIN i.bairro b LEFT JOIN i.usuario u";
+
+    @Query(LISTAGEM_SELECT)
+    List<ImoveisListDTO> findAllListagem();
+
+    @Query(value = LISTAGEM_SELECT, countQuery = "SELECT COUNT(i) FROM ImoveisModel i")
+    Page<ImoveisListDTO> findAllListagem(Pageable pageable);
+
+    // Mesma listagem paginada, mas sem o COUNT(*) (retorna apenas se há próxima página)
+    @Query(LISTAGEM_SELECT)
+    Slice<ImoveisListDTO> findSliceListagem(Pageable pageable);
+
+    @Query(LISTAGEM_SELECT + " WHERE i.id = :id")
+    Optional<ImoveisListDTO> findListagemById(@Param("id") Integer id);
+
+    @Query(LISTAGEM_SELECT + " WHERE u.id = :usuarioId")
+    List<ImoveisListDTO> findListagemByUsuarioId(@Param("usuarioId") Integer usuarioId);
+
+    @Query(LISTAGEM_SELECT + " WHERE i.id IN :ids")
+    List<ImoveisListDTO> findListagemByIdIn(@Param("ids") List<Integer> ids);
+
+    // Valores usados pelo índice de facetas em memória: [id, bairroId, tipoId, status, finalidade, dormitorios]
+    @Query("SELECT i.id, b.id, t.id, i.status, i.finalidade, i.dormitorios "
+            + "FROM ImoveisModel i LEFT JOIN i.bairro b LEFT JOIN i.tipoImovel t")
+    List<Object[]> findValoresFacetas();
+
+    @Query("SELECT i.id, b.id, t.id, i.status, i.finalidade, i.dormitorios "
+            + "FROM ImoveisModel i LEFT JOIN i.bairro b LEFT JOIN i.tipoImovel t WHERE i.id IN :ids")
+    List<Object[]> findValoresFacetasByIdIn(@Param("ids") Collection<Integer> ids);
+
+    // Marca o imóvel como alterado quando muda algo que aparece na listagem mas fica em outra tabela
+    // (as fotos/capa), para a ETag da coleção mudar junto. Roda na transação do service
+    @Modifying
+    @Query("UPDATE ImoveisModel i SET i.atualizadoEm = :agora WHERE i.id = :id")
+    int marcarAtualizado(@Param("id") Integer id, @Param("agora") Instant agora);
+
+    // Total + última atualização, para ETag/Last-Modified (cache de consulta na região VERSOES: não vai ao
+    // banco se a tabela não mudou nesta instância, e expira logo para enxergar as escritas das outras)
+    @Query("SELECT new com.example.demo.dto.VersaoColecaoDTO(COUNT(x), MAX(x.atualizadoEm)) FROM ImoveisModel x")
+    @QueryHints({ @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = CacheConfig.VERSOES) })
+    VersaoColecaoDTO findVersao();
+
+    // Leitura em fluxo (forward-only) para exportação do catálogo inteiro.
+    // Deve ser consumida dentro de uma transação e fechada ao final (try-with-resources).
+    // O fetch size só tem efeito de cursor no MySQL com useCursorFetch=true na URL.
+    @Query(LISTAGEM_SELECT + " ORDER BY i.id")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<ImoveisListDTO> streamAllListagem();
+
     // Buscar imóveis por ID do usuário proprietário
     List<ImoveisModel> findByUsuarioId(Integer usuarioId);
 
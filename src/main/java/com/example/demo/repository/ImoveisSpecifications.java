@@ -0,0 +1,101 @@
+package com.example.demo.repository;
+
+import com.example.demo.config.BuscaTextoConfig;
+import com.example.demo.dto.ImoveisFiltroDTO;
+import com.example.demo.model.ImoveisModel;
+
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Specifications (Criteria API) para a busca de imóveis com múltiplos filtros.
+ * Os filtros seguem a ordem dos índices compostos declarados em ImoveisModel.
+ */
+public class ImoveisSpecifications {
+
+    /**
+     * Monta uma Specification combinando (AND) todos os filtros preenchidos no DTO.
+     * Com palavras-chave (q) filtra pelo índice FULLTEXT (função busca_texto) e ordena por relevância.
+     * Quando a consulta retorna a entidade, faz JOIN FETCH de tipo, bairro e usuário
+     * para a conversão em ImoveisListDTO não disparar SELECTs por linha.
+     *
+     * @param filtro Os filtros da busca.
+     * @return A Specification pronta para o ImoveisRepository.
+     */
+    public static Specification<ImoveisModel> comFiltro(ImoveisFiltroDTO filtro) {
+        return (root, query, cb) -> {
+            // Não faz fetch na consulta de COUNT da paginação (nem em projeções)
+            if (query.getResultType() == ImoveisModel.class) {
+                root.fetch("tipoImovel", JoinType.LEFT);
+                root.fetch("bairro", JoinType.LEFT);
+                root.fetch("usuario", JoinType.LEFT);
+            }
+
+            List<Predicate> predicados = new ArrayList<>();
+            if (filtro.getBairroId() != null) {
+                predicados.add(cb.equal(root.get("bairro").get("id"), filtro.getBairroId()));
+            }
+            if (filtro.getTipoImovelId() != null) {
+                predicados.add(cb.equal(root.get("tipoImovel").get("id"), filtro.getTipoImovelId()));
+            }
+            if (filtro.getStatus() != null) {
+                predicados.add(cb.equal(root.get("status"), filtro.getStatus()));
+            }
+            if (filtro.getFinalidade() != null) {
+                predicados.add(cb.equal(root.get("finalidade"), filtro.getFinalidade()));
+            }
+            if (filtro.getPrecoVendaMin() != null) {
+                predicados.add(cb.greaterThanOrEqualTo(root.get("preco_venda"), filtro.getPrecoVendaMin()));
+            }
+            if (filtro.getPrecoVendaMax() != null) {
+                predicados.add(cb.lessThanOrEqualTo(root.get("preco_venda"), filtro.getPrecoVendaMax()));
+            }
+            if (filtro.getPrecoAluguelMin() != null) {
+                predicados.add(cb.greaterThanOrEqualTo(root.get("preco_aluguel"), filtro.getPrecoAluguelMin()));
+            }
+            if (filtro.getPrecoAluguelMax() != null) {
+                predicados.add(cb.lessThanOrEqualTo(root.get("preco_aluguel"), filtro.getPrecoAluguelMax()));
+            }
+            if (filtro.getDormitoriosMin() != null) {
+                predicados.add(cb.greaterThanOrEqualTo(root.get("dormitorios"), filtro.getDormitoriosMin()));
+            }
+            if (filtro.getBanheirosMin() != null) {
+                predicados.add(cb.greaterThanOrEqualTo(root.get("banheiros"), filtro.getBanheirosMin()));
+            }
+            if (filtro.getGaragemMin() != null) {
+                predicados.add(cb.greaterThanOrEqualTo(root.get("garagem"), filtro.getGaragemMin()));
+            }
+            if (filtro.getAreaMin() != null) {
+                predicados.add(cb.greaterThanOrEqualTo(root.get("area_total"), filtro.getAreaMin()));
+            }
+            if (filtro.getAreaMax() != null) {
+                predicados.add(cb.lessThanOrEqualTo(root.get("area_total"), filtro.getAreaMax()));
+            }
+            if (filtro.getDestaque() != null) {
+                predicados.add(cb.equal(root.get("destaque"), filtro.getDestaque()));
+            }
+            if (filtro.getQ() != null && !filtro.getQ().isBlank()) {
+                Expression<Double> relevancia = cb.function(BuscaTextoConfig.FUNCAO, Double.class,
+                        root.get("titulo"), root.get("descricao"), root.get("caracteristicas"),
+                        cb.literal(filtro.getQ().trim()));
+                predicados.add(cb.greaterThan(relevancia, 0.0));
+                // Mais relevantes primeiro; um sort informado na paginação substitui esta ordem
+                if (query.getResultType() == ImoveisModel.class) {
+                    query.orderBy(cb.desc(relevancia), cb.desc(root.get("id")));
+                }
+            }
+            return cb.and(predicados.toArray(new Predicate[0]));
+        };
+    }
+
+    // Restringe aos imóveis de um usuário (corretor só enxerga/altera os próprios nas operações em lote)
+    public static Specification<ImoveisModel> doUsuario(Integer usuarioId) {
+        return (root, query, cb) -> cb.equal(root.get("usuario").get("id"), usuarioId);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.ProcessamentoFotoModel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface ProcessamentoFotoRepository extends JpaRepository<ProcessamentoFotoModel, Integer> {
+
+    Optional<ProcessamentoFotoModel> findByFotoId(Integer fotoId);
+
+    List<ProcessamentoFotoModel> findByStatus(ProcessamentoFotoModel.Status status);
+
+    long countByStatus(ProcessamentoFotoModel.Status status);
+
+    // Reserva o job para este nó: só um UPDATE encontra a linha ainda PENDENTE (retorna 1 para quem ganhou)
+    @Modifying
+    @Transactional
+    @Query("UPDATE ProcessamentoFotoModel p SET p.status = :processando, p.processandoDesde = :agora, "
+            + "p.tentativas = COALESCE(p.tentativas, 0) + 1, p.atualizadoEm = :agora "
+            + "WHERE p.id = :id AND p.status = :pendente")
+    int reservar(@Param("id") Integer id, @Param("agora") Instant agora,
+            @Param("pendente") ProcessamentoFotoModel.Status pendente,
+            @Param("processando") ProcessamentoFotoModel.Status processando);
+
+    // Jobs reservados antes do limite (o nó parou no meio) voltam para a fila; os em andamento ficam
+    @Modifying
+    @Transactional
+    @Query("UPDATE ProcessamentoFotoModel p SET p.status = :pendente, p.processandoDesde = NULL "
+            + "WHERE p.status = :processando AND (p.processandoDesde IS NULL OR p.processandoDesde < :limite)")
+    int liberarExpirados(@Param("limite") Instant limite,
+            @Param("processando") ProcessamentoFotoModel.Status processando,
+            @Param("pendente") ProcessamentoFotoModel.Status pendente);
+
+    @Modifying
+    @Transactional
+    void deleteByFotoId(Integer fotoId);
+}
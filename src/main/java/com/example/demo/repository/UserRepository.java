@@ -1,6 +1,18 @@
 package com.example.demo.repository;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import jakarta.persistence.QueryHint;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_REGION;
+
+import com.example.demo.config.CacheConfig;
+import com.example.demo.dto.VersaoColecaoDTO;
 import com.example.demo.model.UserModel;
 
 
@@ -11,5 +23,16 @@ public interface UserRepository extends JpaRepository<UserModel, Integer> {
     // Método para buscar usuário por email
     // O Spring Data JPA gera automaticamente a query baseado no nome do método
     UserModel findByEmail(String email);
+
+    // Só os IDs, para validar o usuarioId das linhas na importação em lote sem carregar os usuários
+    @Query("SELECT u.id FROM UserModel u")
+    List<Integer> findAllIds();
+
+    // Total e última atualização, para a ETag da listagem de imóveis (que mostra nome e e-mail do usuário).
+    // Mesmo cache de consulta das versões de imóveis, bairros e tipos (região VERSOES)
+    @Query("SELECT new com.example.demo.dto.VersaoColecaoDTO(COUNT(x), MAX(x.atualizadoEm)) FROM UserModel x")
+    @QueryHints({ @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = CacheConfig.VERSOES) })
+    VersaoColecaoDTO findVersao();
     
 }
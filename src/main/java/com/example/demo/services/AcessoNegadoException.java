@@ -0,0 +1,14 @@
+package com.example.demo.services;
+
+/**
+ * Lançada pelos services quando o usuário logado não pode alterar o registro
+ * (ex: corretor editando imóvel de outro corretor). O controller responde 403.
+ */
+public class AcessoNegadoException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public AcessoNegadoException(String mensagem) {
+        super(mensagem);
+    }
+}
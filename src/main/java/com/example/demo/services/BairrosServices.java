@@ -1,13 +1,17 @@
 package com.example.demo.services;
 
+import com.example.demo.config.CacheConfig;
 import com.example.demo.dto.BairrosDTO;
+import com.example.demo.dto.VersaoColecaoDTO;
 import com.example.demo.model.BairrosModel;
 import com.example.demo.repository.BairrosRepository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -18,24 +22,35 @@ public class BairrosServices {
     @Autowired
     private BairrosRepository repositorio;
 
+    @Transactional(readOnly = true)
     public List<BairrosModel> getAll() {
         return repositorio.findAll();
     }
 
+    @Transactional(readOnly = true)
     public Page<BairrosModel> getAll(Pageable pageable) {
         Page<BairrosModel> list = repositorio.findAll(pageable);
         return list;
     }
 
+    // Versão da coleção para GET condicional (ETag / Last-Modified)
+    @Transactional(readOnly = true)
+    public VersaoColecaoDTO getVersao() {
+        return repositorio.findVersao();
+    }
+
+    @Transactional(readOnly = true)
     public BairrosModel find(Integer id) {
         Optional<BairrosModel> model = repositorio.findById(id);
         return model.orElse(null);
     }
 
+    @Transactional
     public BairrosModel insert(BairrosModel model) {
         return repositorio.save(model);
     }
 
+    @Transactional
     public BairrosModel insert(BairrosDTO dto) {
         BairrosModel model = new BairrosModel();
         model.setNome(dto.getNome());
@@ -46,19 +61,20 @@ public class BairrosServices {
         return repositorio.save(model);
     }
 
+    // O nome aparece nos ImoveisListDTO em cache, então a listagem de imóveis é invalidada
+    @CacheEvict(cacheNames = { CacheConfig.IMOVEIS, CacheConfig.IMOVEIS_PAGINAS }, allEntries = true)
+    @Transactional
     public BairrosModel update(BairrosModel model) {
-        try {
-            if (find(model.getId()) != null) {
-                return repositorio.save(model);
-            } else {
-                return null;
-            }
-        } catch (Exception e) {
+        // Verificação e escrita na mesma transação; falhas de banco sobem para o controller
+        if (model.getId() == null || !repositorio.existsById(model.getId())) {
             return null;
         }
+        return repositorio.save(model);
     }
 
     // --- MÉTODO UPDATE USANDO DTO ---
+    @CacheEvict(cacheNames = { CacheConfig.IMOVEIS, CacheConfig.IMOVEIS_PAGINAS }, allEntries = true)
+    @Transactional
     public BairrosModel update(Integer id, BairrosDTO dto) {
         Optional<BairrosModel> optionalModel = repositorio.findById(id);
         if (optionalModel.isPresent()) {
@@ -76,16 +92,13 @@ public class BairrosServices {
         }
     }
 
+    @CacheEvict(cacheNames = { CacheConfig.IMOVEIS, CacheConfig.IMOVEIS_PAGINAS }, allEntries = true)
+    @Transactional
     public boolean delete(Integer id) {
-        try {
-            if (find(id) != null) {
-                repositorio.deleteById(id);
-                return true;
-            } else {
-                return false;
-            }
-        } catch (Exception e) {
+        if (!repositorio.existsById(id)) {
             return false;
         }
+        repositorio.deleteById(id);
+        return true;
     }
 }
\ No newline at end of file
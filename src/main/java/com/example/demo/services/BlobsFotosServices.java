@@ -0,0 +1,370 @@
+package com.example.demo.services;
+
+import com.example.demo.model.BlobFotoModel;
+import com.example.demo.model.FotosImoveisModel;
+import com.example.demo.repository.BlobFotoRepository;
+import com.example.demo.repository.FotosImoveisRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Armazenamento das fotos pelo conteúdo (content-addressed).
+ *
+ * O arquivo enviado vai direto do stream da requisição para o PhotoStorage (tmp/upload-<uuid>),
+ * com o SHA-256 calculado durante a mesma gravação; depois é movido para blobs/xx/yy/<hash>.<ext>
+ * (renomeação no disco, cópia interna no S3: o conteúdo é enviado uma única vez). Se o mesmo
+ * conteúdo já existir, o temporário é descartado e apenas a contagem de referências do blob aumenta.
+ * As versões redimensionadas ficam ao lado do blob e também são compartilhadas.
+ *
+ * A contagem de referências é protegida pelo banco (linha do blob travada com SELECT ... FOR UPDATE
+ * durante a alteração), então vale também com várias instâncias da aplicação.
+ */
+@Service
+public class BlobsFotosServices {
+
+    private static final String DIRETORIO_BLOBS = "blobs";
+    private static final String DIRETORIO_TEMP = "tmp";
+
+    // Novas tentativas quando duas gravações do mesmo conteúdo novo colidem (chave duplicada ou deadlock)
+    private static final int TENTATIVAS_REGISTRO = 3;
+
+    @Autowired
+    private BlobFotoRepository repositorio;
+
+    @Autowired
+    private FotosImoveisRepository fotosRepository;
+
+    @Autowired
+    private PhotoStorage storage; // Disco local ou S3 (app.storage.tipo)
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor executor; // Pool padrão do Spring Boot (gravações do upload em lote)
+
+    @Value("${app.upload.dir:./uploads}")
+    private String uploadDir;
+
+    /**
+     * Grava o conteúdo como blob (ou reaproveita um blob idêntico) e registra uma referência.
+     * Quem chama deve chamar {@link #liberar(String)} se a foto não chegar a ser salva.
+     *
+     * @param conteudo     O stream do arquivo enviado (não é fechado aqui).
+     * @param nomeOriginal O nome original do arquivo (usado só para a extensão).
+     * @return O blob com o hash e o caminho relativo ao uploadDir.
+     * @throws IOException Se houver erro ao gravar o arquivo.
+     */
+    public BlobFotoModel armazenar(InputStream conteudo, String nomeOriginal) throws IOException {
+        return registrar(receber(conteudo, nomeOriginal));
+    }
+
+    /**
+     * Primeira etapa do armazenamento: grava o conteúdo no PhotoStorage em uma chave temporária,
+     * calculando o SHA-256 ao mesmo tempo (uma única leitura do stream e uma única gravação). Precisa
+     * ser feita na ordem em que o multipart chega; a segunda etapa ({@link #registrar(ArquivoRecebido)})
+     * pode rodar em paralelo.
+     *
+     * @throws IOException Se houver erro ao ler o stream ou gravar (nada fica gravado).
+     */
+    public ArquivoRecebido receber(InputStream conteudo, String nomeOriginal) throws IOException {
+        String extensao = extensao(nomeOriginal);
+        String temp = Paths.get(DIRETORIO_TEMP, "upload-" + UUID.randomUUID() + extensao).toString();
+        MessageDigest digest = novoDigest();
+        long tamanho = storage.gravar(temp, new DigestInputStream(conteudo, digest));
+        return new ArquivoRecebido(temp, HexFormat.of().formatHex(digest.digest()), tamanho, extensao);
+    }
+
+    /**
+     * Segunda etapa: move o temporário para o caminho do blob (se ainda não existir) e registra a
+     * referência. O temporário que sobrar é apagado.
+     */
+    public BlobFotoModel registrar(ArquivoRecebido recebido) throws IOException {
+        try {
+            return registrar(recebido.hash(), recebido.extensao(), recebido.tamanho(),
+                    chave -> storage.mover(recebido.temp(), chave));
+        } finally {
+            if (storage.existe(recebido.temp())) {
+                storage.excluir(recebido.temp()); // Conteúdo que já existia como blob
+            }
+        }
+    }
+
+    /**
+     * Executa {@link #registrar(ArquivoRecebido)} em paralelo (usado pelo upload em lote: enquanto
+     * um arquivo vai para o armazenamento, o próximo já está sendo lido da requisição).
+     */
+    public CompletableFuture<BlobFotoModel> registrarAsync(ArquivoRecebido recebido) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return registrar(recebido);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            // Pool cheio: registra na própria thread
+            try {
+                return CompletableFuture.completedFuture(registrar(recebido));
+            } catch (IOException ex) {
+                return CompletableFuture.failedFuture(ex);
+            }
+        }
+    }
+
+    // Arquivo já gravado na chave temporária e com o hash calculado, aguardando ir para o caminho do blob
+    public record ArquivoRecebido(String temp, String hash, long tamanho, String extensao) {}
+
+    /**
+     * Remove uma referência ao blob; sem referências, apaga o registro, o arquivo e as derivadas.
+     * Deve ser chamado depois do commit da exclusão da foto (ver FotosImoveisServices.delete).
+     *
+     * @param hash O hash do blob.
+     * @return true se o arquivo foi apagado (era a última referência).
+     * @throws IOException Se houver erro ao apagar os arquivos (a contagem não é alterada).
+     */
+    public boolean liberar(String hash) throws IOException {
+        try {
+            Boolean apagado = new TransactionTemplate(transactionManager).execute(status -> {
+                BlobFotoModel blob = repositorio.findParaAtualizar(hash).orElse(null);
+                if (blob == null) {
+                    return false;
+                }
+                if (blob.getReferencias() > 1) {
+                    blob.setReferencias(blob.getReferencias() - 1);
+                    return false; // Ainda há fotos usando este arquivo
+                }
+                repositorio.delete(blob);
+                repositorio.flush();
+                // Os arquivos saem com a linha ainda travada: um registrar() do mesmo conteúdo em outra
+                // instância espera este commit e grava o arquivo de novo
+                try {
+                    excluirArquivos(blob.getCaminho());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return true;
+            });
+            return Boolean.TRUE.equals(apagado);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Se o blob ainda existir, os arquivos gerados para ele não devem ser apagados
+    public boolean existe(String hash) {
+        return repositorio.existsById(hash);
+    }
+
+    /**
+     * Migra as fotos gravadas antes dos blobs (nome UUID-original, no disco local em app.upload.dir)
+     * para o armazenamento por conteúdo, unificando arquivos idênticos. Com app.storage.tipo=s3,
+     * também serve para enviar as fotos antigas ao bucket. Pode ser executado mais de uma vez:
+     * só processa fotos com hash nulo.
+     *
+     * @return Resumo da migração (fotos migradas, duplicadas, bytes liberados, erros).
+     */
+    public Map<String, Object> deduplicarExistentes() {
+        int migradas = 0;
+        int duplicadas = 0;
+        int erros = 0;
+        long bytesLiberados = 0;
+
+        for (FotosImoveisModel foto : fotosRepository.findByHashIsNull()) {
+            try {
+                Path original = Paths.get(uploadDir, foto.getCaminho()).normalize();
+                if (!Files.isRegularFile(original)) {
+                    System.out.println("Aviso: arquivo da foto " + foto.getId() + " não encontrado: " + original);
+                    erros++;
+                    continue;
+                }
+                long tamanho = Files.size(original);
+                MessageDigest digest = novoDigest();
+                try (DigestInputStream in = new DigestInputStream(Files.newInputStream(original), digest)) {
+                    in.transferTo(OutputStream.nullOutputStream());
+                }
+                String hash = HexFormat.of().formatHex(digest.digest());
+
+                boolean jaExistia = repositorio.existsById(hash);
+                BlobFotoModel blob = registrar(hash, extensao(foto.getCaminho()), tamanho,
+                        chave -> storage.salvar(chave, original));
+
+                // Derivadas antigas: movidas para junto do blob (ou descartadas se o blob já tem as suas)
+                Map<ImagensServices.Tamanho, String> derivadas = new LinkedHashMap<>();
+                derivadas.put(ImagensServices.Tamanho.THUMB, foto.getCaminho_thumb());
+                derivadas.put(ImagensServices.Tamanho.CARD, foto.getCaminho_card());
+                derivadas.put(ImagensServices.Tamanho.FULL, foto.getCaminho_full());
+                Map<ImagensServices.Tamanho, String> novosCaminhos = new LinkedHashMap<>();
+                for (Map.Entry<ImagensServices.Tamanho, String> derivada : derivadas.entrySet()) {
+                    if (derivada.getValue() == null) {
+                        continue;
+                    }
+                    Path antiga = Paths.get(uploadDir, derivada.getValue()).normalize();
+                    String nova = caminhoDaDerivada(blob.getCaminho(), derivada.getKey());
+                    if (Files.exists(antiga)) {
+                        if (storage.existe(nova)) {
+                            bytesLiberados += Files.size(antiga);
+                        } else {
+                            storage.salvar(nova, antiga);
+                        }
+                        Files.deleteIfExists(antiga);
+                    }
+                    if (storage.existe(nova)) {
+                        novosCaminhos.put(derivada.getKey(), nova);
+                    }
+                }
+
+                foto.setHash(hash);
+                foto.setCaminho(blob.getCaminho());
+                foto.setCaminho_thumb(novosCaminhos.get(ImagensServices.Tamanho.THUMB));
+                foto.setCaminho_card(novosCaminhos.get(ImagensServices.Tamanho.CARD));
+                foto.setCaminho_full(novosCaminhos.get(ImagensServices.Tamanho.FULL));
+                fotosRepository.save(foto);
+
+                // O original foi movido/copiado para o blob ou era uma cópia de um blob existente
+                Files.deleteIfExists(original);
+                if (jaExistia) {
+                    duplicadas++;
+                    bytesLiberados += tamanho;
+                }
+                migradas++;
+            } catch (Exception e) {
+                System.err.println("Erro ao migrar foto " + foto.getId() + ": " + e.getMessage());
+                erros++;
+            }
+        }
+
+        Map<String, Object> resumo = new LinkedHashMap<>();
+        resumo.put("migradas", migradas);
+        resumo.put("duplicadas", duplicadas);
+        resumo.put("bytesLiberados", bytesLiberados);
+        resumo.put("erros", erros);
+        System.out.println("Deduplicação de fotos concluída: " + resumo);
+        return resumo;
+    }
+
+    // Coloca o arquivo no caminho do blob (se ainda não existir) e soma uma referência
+    private BlobFotoModel registrar(String hash, String extensao, long tamanho, Origem origem) throws IOException {
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                return new TransactionTemplate(transactionManager)
+                        .execute(status -> adicionarReferencia(hash, extensao, tamanho, origem));
+            } catch (DataIntegrityViolationException | ConcurrencyFailureException e) {
+                // Outra instância criou o mesmo blob ao mesmo tempo: na próxima tentativa a linha já existe
+                if (tentativa >= TENTATIVAS_REGISTRO) {
+                    throw e;
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    // Na transação do registrar: trava a linha do blob ou, se ele for novo, cria a linha (o INSERT trava a
+    // chave até o commit; uma gravação concorrente do mesmo hash espera e recebe chave duplicada)
+    // O arquivo só é gravado se faltar: com o mesmo hash o conteúdo é o mesmo (inclusive o que uma
+    // tentativa anterior já tenha movido para lá)
+    private BlobFotoModel adicionarReferencia(String hash, String extensao, long tamanho, Origem origem) {
+        try {
+            BlobFotoModel blob = repositorio.findParaAtualizar(hash).orElse(null);
+            if (blob == null) {
+                blob = new BlobFotoModel(hash, caminhoDoBlob(hash, extensao), tamanho);
+                blob.setReferencias(1);
+                blob = repositorio.saveAndFlush(blob);
+            } else {
+                blob.setReferencias(blob.getReferencias() + 1);
+            }
+            if (!storage.existe(blob.getCaminho())) {
+                origem.gravarEm(blob.getCaminho());
+            }
+            return blob;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // De onde vem o conteúdo de um blob novo: o temporário do upload ou um arquivo local (migração)
+    @FunctionalInterface
+    private interface Origem {
+        void gravarEm(String chave) throws IOException;
+    }
+
+    // Apaga o arquivo do blob e as versões redimensionadas que existirem
+    private void excluirArquivos(String caminho) throws IOException {
+        storage.excluir(caminho);
+        for (ImagensServices.Tamanho tamanho : ImagensServices.Tamanho.values()) {
+            String derivada = caminhoDaDerivada(caminho, tamanho);
+            if (storage.existe(derivada)) {
+                storage.excluir(derivada);
+            }
+        }
+    }
+
+    // blobs/ab/cd/abcd...ef.jpg: dois níveis evitam diretórios com milhares de arquivos
+    private static String caminhoDoBlob(String hash, String extensao) {
+        return Paths.get(DIRETORIO_BLOBS, hash.substring(0, 2), hash.substring(2, 4), hash + extensao).toString();
+    }
+
+    /**
+     * Caminho de uma versão redimensionada, gravada ao lado do arquivo original.
+     *
+     * @param caminho O caminho relativo do original (ex: blobs/ab/cd/<hash>.png).
+     * @param tamanho O tamanho da derivada.
+     * @return O caminho relativo da derivada (ex: blobs/ab/cd/<hash>-thumb.jpg).
+     */
+    public static String caminhoDaDerivada(String caminho, ImagensServices.Tamanho tamanho) {
+        Path original = Paths.get(caminho);
+        return original.resolveSibling(
+                ImagensServices.nomeDerivada(original.getFileName().toString(), tamanho)).toString();
+    }
+
+    // Extensão em minúsculas (".jpg"), apenas alfanumérica; vazia se não houver
+    private static String extensao(String nome) {
+        if (nome == null) {
+            return "";
+        }
+        int ponto = nome.lastIndexOf('.');
+        if (ponto < 0 || ponto == nome.length() - 1) {
+            return "";
+        }
+        String ext = nome.substring(ponto + 1).toLowerCase(Locale.ROOT);
+        return ext.matches("[a-z0-9]{1,5}") ? "." + ext : "";
+    }
+
+    private static MessageDigest novoDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+}
+
@@ -0,0 +1,263 @@
+package com.example.demo.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Entrega dos arquivos de fotos (original e versões redimensionadas) a partir do PhotoStorage.
+ *
+ * No disco local usa o sendfile do Tomcat quando disponível (o kernel copia o arquivo para o
+ * socket sem passar pela JVM) e FileChannel.transferTo nos demais casos; no S3 repassa o stream
+ * do intervalo pedido. Suporta requisições Range
+ * (um intervalo), If-None-Match com ETag calculado pelo conteúdo e cache imutável para
+ * arquivos com nome pelo hash ou UUID (o nome nunca é reaproveitado para outro conteúdo).
+ */
+@Service
+public class EntregaFotosServices {
+
+    // Atributos do Tomcat para envio via sendfile (ver org.apache.catalina.Globals)
+    private static final String SENDFILE_SUPORTADO = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_ARQUIVO = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_INICIO = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_FIM = "org.apache.tomcat.sendfile.end";
+
+    // Abaixo deste tamanho a cópia comum é mais barata que o sendfile (mesmo limite do DefaultServlet)
+    private static final long TAMANHO_MINIMO_SENDFILE = 48 * 1024;
+
+    private static final String CACHE_IMUTAVEL = "public, max-age=31536000, immutable";
+    private static final String CACHE_REVALIDAR = "public, max-age=0, must-revalidate";
+
+    // Nomes que nunca mudam de conteúdo: SHA-256 (blobs, ver BlobsFotosServices) ou UUID (uploads antigos)
+    private static final Pattern NOME_IMUTAVEL = Pattern.compile(
+            "^([0-9a-f]{64}|[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}).*");
+
+    private static final Pattern RANGE_UNICO = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+
+    // ETag por arquivo; a chave inclui data de modificação e tamanho, então um arquivo alterado gera nova entrada
+    private final Cache<String, String> etags = Caffeine.newBuilder()
+            .maximumSize(20_000)
+            .build();
+
+    @Autowired
+    private PhotoStorage storage;
+
+    /**
+     * Envia o arquivo na resposta, tratando If-None-Match, Range e HEAD.
+     *
+     * @param caminho  O caminho relativo (como gravado em FotosImoveisModel.caminho).
+     * @param imutavel Se a URL sempre aponta para este mesmo conteúdo (permite cache de 1 ano).
+     * @return false se o arquivo não existir (nada é escrito na resposta).
+     * @throws IOException Se houver erro ao ler o arquivo ou escrever a resposta.
+     */
+    public boolean enviar(String caminho, boolean imutavel, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (!caminhoValido(caminho)) {
+            return false;
+        }
+        Optional<PhotoStorage.Metadados> metadados = storage.metadados(caminho);
+        if (metadados.isEmpty()) {
+            return false;
+        }
+        Optional<Path> local = storage.localPath(caminho);
+        long tamanho = metadados.get().tamanho();
+        String nomeArquivo = Paths.get(caminho).getFileName().toString();
+        String etag = etag(caminho, local, metadados.get());
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                imutavel && NOME_IMUTAVEL.matcher(nomeArquivo).matches() ? CACHE_IMUTAVEL : CACHE_REVALIDAR);
+        if (metadados.get().modificadoEm() != null) {
+            response.setDateHeader(HttpHeaders.LAST_MODIFIED, metadados.get().modificadoEm().toEpochMilli());
+        }
+
+        // 1. Requisição condicional: o cliente já tem esta versão
+        if (etagConfere(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+
+        // 2. Intervalo solicitado (If-Range diferente do ETag atual = envia o arquivo inteiro)
+        long inicio = 0;
+        long fim = tamanho - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] intervalo = interpretarRange(range, tamanho);
+            if (intervalo == null) {
+                // Vários intervalos ou formato desconhecido: ignora o Range e envia tudo (permitido pela RFC 9110)
+            } else if (intervalo.length == 0) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + tamanho);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return true;
+            } else {
+                inicio = intervalo[0];
+                fim = intervalo[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + inicio + "-" + fim + "/" + tamanho);
+            }
+        }
+
+        long quantidade = fim - inicio + 1;
+        response.setContentType(MediaTypeFactory.getMediaType(nomeArquivo)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setContentLengthLong(quantidade);
+
+        if ("HEAD".equalsIgnoreCase(request.getMethod()) || quantidade == 0) {
+            return true;
+        }
+
+        // 3a. Armazenamento remoto (S3): repassa o stream do intervalo pedido
+        if (local.isEmpty()) {
+            try (InputStream in = storage.abrir(caminho, inicio, fim)) {
+                in.transferTo(response.getOutputStream());
+            }
+            return true;
+        }
+
+        // 3b. Disco local: sendfile do Tomcat (zero cópia) ou transferTo para o stream da resposta
+        Path arquivo = local.get();
+        if (quantidade >= TAMANHO_MINIMO_SENDFILE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPORTADO))) {
+            request.setAttribute(SENDFILE_ARQUIVO, arquivo.toString());
+            request.setAttribute(SENDFILE_INICIO, inicio);
+            request.setAttribute(SENDFILE_FIM, fim + 1); // Exclusivo
+            return true;
+        }
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            WritableByteChannel saida = Channels.newChannel(response.getOutputStream());
+            long posicao = inicio;
+            long restante = quantidade;
+            while (restante > 0) {
+                long enviados = canal.transferTo(posicao, restante, saida);
+                if (enviados <= 0) {
+                    break;
+                }
+                posicao += enviados;
+                restante -= enviados;
+            }
+        }
+        return true;
+    }
+
+    // Recusa caminhos absolutos ou com ".." (o arquivo tem que estar dentro do armazenamento)
+    private static boolean caminhoValido(String caminho) {
+        if (caminho == null || caminho.isBlank()) {
+            return false;
+        }
+        Path relativo = Paths.get(caminho).normalize();
+        return !relativo.isAbsolute() && !relativo.startsWith("..");
+    }
+
+    // Disco local: ETag forte com o SHA-256 do conteúdo, recalculado apenas quando o arquivo muda.
+    // Remoto: ETag do próprio backend (no S3, o MD5 do objeto)
+    private String etag(String caminho, Optional<Path> local, PhotoStorage.Metadados metadados) throws IOException {
+        long modificado = metadados.modificadoEm() != null ? metadados.modificadoEm().toEpochMilli() : 0;
+        if (local.isEmpty()) {
+            return metadados.etag() != null ? metadados.etag()
+                    : "W/\"" + metadados.tamanho() + "-" + modificado + "\"";
+        }
+        String chave = caminho + "|" + modificado + "|" + metadados.tamanho();
+        String etag = etags.getIfPresent(chave);
+        if (etag == null) {
+            etag = "\"" + sha256(local.get()) + "\"";
+            etags.put(chave, etag);
+        }
+        return etag;
+    }
+
+    private static String sha256(Path arquivo) throws IOException {
+        try (InputStream in = Files.newInputStream(arquivo)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int lidos;
+            while ((lidos = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, lidos);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    private static boolean etagConfere(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.equals("*")) {
+                return true;
+            }
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2); // Comparação fraca, como exige a RFC para If-None-Match
+            }
+            if (valor.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Interpreta um cabeçalho Range de um único intervalo.
+     *
+     * @return {inicio, fim} inclusivos; vetor vazio se não puder ser atendido (416);
+     *         null se o cabeçalho deve ser ignorado (vários intervalos ou formato inválido).
+     */
+    private static long[] interpretarRange(String range, long tamanho) {
+        var matcher = RANGE_UNICO.matcher(range.trim());
+        if (!matcher.matches()) {
+            return null;
+        }
+        String inicioTexto = matcher.group(1);
+        String fimTexto = matcher.group(2);
+        try {
+            if (inicioTexto.isEmpty()) {
+                // Sufixo: "bytes=-500" = últimos 500 bytes
+                if (fimTexto.isEmpty()) {
+                    return null;
+                }
+                long sufixo = Long.parseLong(fimTexto);
+                if (sufixo == 0 || tamanho == 0) {
+                    return new long[0];
+                }
+                return new long[] { Math.max(0, tamanho - sufixo), tamanho - 1 };
+            }
+            long inicio = Long.parseLong(inicioTexto);
+            if (!fimTexto.isEmpty() && Long.parseLong(fimTexto) < inicio) {
+                return null; // "bytes=500-100" é inválido: ignora o Range
+            }
+            long fim = fimTexto.isEmpty() ? tamanho - 1 : Math.min(Long.parseLong(fimTexto), tamanho - 1);
+            if (inicio >= tamanho) {
+                return new long[0];
+            }
+            return new long[] { inicio, fim };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
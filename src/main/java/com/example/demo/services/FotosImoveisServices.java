@@ -11,8 +11,14 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;// Para limpar nomes de arquivos
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -32,23 +38,61 @@ public class FotosImoveisServices {
     @Autowired
     private ImoveisRepository imoveisRepository; // Para buscar imóvel
 
+    @Autowired
+    private PhotoStorage storage; // Disco local ou S3 (app.storage.tipo)
+
+    @Autowired
+    private BlobsFotosServices blobsServices; // Arquivos armazenados pelo conteúdo (compartilhados)
+
+    @Autowired
+    private ProcessamentoFotosServices processamentoServices; // Fila de geração das versões redimensionadas
+
+    @Autowired
+    private ImoveisServices imoveisServices; // Caches da listagem (a capa aparece nos cards)
+
     @Value("${app.upload.dir:./uploads}")
     private String uploadDir;
 
-    public List<FotosImoveisModel> getAll() {
-        return repositorio.findAll();
+    // Limite das listagens de fotos: a lista sem paginação devolve só as primeiras,
+    // e o tamanho de página pedido é reduzido a este valor
+    public static final int MAX_FOTOS_POR_PAGINA = 500;
+
+    // As leituras usam a projeção FotosImoveisDTO (sem entidades gerenciadas nem proxies na serialização)
+
+    // Primeiras MAX_FOTOS_POR_PAGINA fotos por ID; para o restante use a paginação
+    @Transactional(readOnly = true)
+    public List<FotosImoveisDTO> getAll() {
+        return repositorio.findAllDto(PageRequest.of(0, MAX_FOTOS_POR_PAGINA, Sort.by("id"))).getContent();
+    }
+
+    @Transactional(readOnly = true)
+    public Page<FotosImoveisDTO> getAll(Pageable pageable) {
+        if (pageable.isPaged() && pageable.getPageSize() > MAX_FOTOS_POR_PAGINA) {
+            pageable = PageRequest.of(pageable.getPageNumber(), MAX_FOTOS_POR_PAGINA, pageable.getSort());
+        } else if (pageable.isUnpaged()) {
+            pageable = PageRequest.of(0, MAX_FOTOS_POR_PAGINA, pageable.getSort());
+        }
+        return repositorio.findAllDto(pageable);
     }
 
-    public Page<FotosImoveisModel> getAll(Pageable pageable) {
-        Page<FotosImoveisModel> list = repositorio.findAll(pageable);
-        return list;
+    @Transactional(readOnly = true)
+    public FotosImoveisDTO findDto(Integer id) {
+        return repositorio.findDtoById(id).orElse(null);
     }
 
+    @Transactional(readOnly = true)
     public FotosImoveisModel find(Integer id) {
         Optional<FotosImoveisModel> model = repositorio.findById(id);
         return model.orElse(null);
     }
 
+    // Para as verificações de permissão do controller (foto -> imóvel -> proprietário em um SELECT)
+    @Transactional(readOnly = true)
+    public FotosImoveisModel findComImovel(Integer id) {
+        return repositorio.findComImovelEUsuarioById(id).orElse(null);
+    }
+
+    @Transactional
     public FotosImoveisModel insert(FotosImoveisModel model) {
         // Verificar se o imóvel existe
         if (model.getImovel() != null) {
@@ -57,9 +101,48 @@ public class FotosImoveisServices {
                 throw new RuntimeException("Imóvel não encontrado");
             model.setImovel(imovel);
         }
-        return repositorio.save(model);
+        FotosImoveisModel salvo = repositorio.save(model);
+        fotosAlteradas(salvo);
+        return salvo;
+    }
+
+    /**
+     * Salva a foto de um upload e agenda a geração das versões redimensionadas.
+     * O processamento roda em segundo plano; até terminar, os caminhos derivados ficam nulos
+     * e a foto é servida pelo original.
+     *
+     * @param model O modelo com o caminho do arquivo original já gravado em disco.
+     * @return O modelo salvo no banco.
+     */
+    @Transactional
+    public FotosImoveisModel insertUpload(FotosImoveisModel model) {
+        // A foto e o job entram no mesmo commit; o job só vai para a fila depois dele (ver enfileirar)
+        FotosImoveisModel salvo = insert(model);
+        processamentoServices.enfileirar(salvo);
+        return salvo;
     }
 
+    /**
+     * Salva as fotos de um upload em lote (um único lote de INSERTs, ver GeradoresIdConfig) e
+     * agenda a geração das versões redimensionadas de cada uma.
+     *
+     * @param models Os modelos com os arquivos já gravados e o imóvel já validado.
+     * @return Os modelos salvos, na mesma ordem.
+     */
+    @Transactional
+    public List<FotosImoveisModel> insertUploads(List<FotosImoveisModel> models) {
+        // Fotos e jobs na mesma transação: os INSERTs vão juntos no flush do commit
+        List<FotosImoveisModel> salvos = repositorio.saveAll(models);
+        salvos.stream().map(this::imovelId).filter(id -> id != null).distinct()
+                .forEach(imoveisServices::fotosAlteradas);
+        // Os jobs só vão para a fila depois do commit: o processamento roda em outra thread e precisa enxergar as fotos
+        for (FotosImoveisModel salvo : salvos) {
+            processamentoServices.enfileirar(salvo);
+        }
+        return salvos;
+    }
+
+    @Transactional
     public FotosImoveisModel insert(FotosImoveisDTO dto) {
         FotosImoveisModel model = new FotosImoveisModel();
         model.setNome_arquivo(dto.getNome_arquivo());
@@ -75,20 +158,20 @@ public class FotosImoveisServices {
             model.setImovel(imovel);
         }
 
-        return repositorio.save(model);
+        FotosImoveisModel salvo = repositorio.save(model);
+        fotosAlteradas(salvo);
+        return salvo;
     }
 
     // --- MÉTODO UPDATE ATUALIZADO (recebe Model) ---
+    @Transactional
     public FotosImoveisModel update(FotosImoveisModel model) {
-        try {
-            if (find(model.getId()) != null) {
-                return repositorio.save(model);
-            } else {
-                return null;
-            }
-        } catch (Exception e) {
+        if (model.getId() == null || !repositorio.existsById(model.getId())) {
             return null;
         }
+        FotosImoveisModel salvo = repositorio.save(model);
+        fotosAlteradas(salvo);
+        return salvo;
     }
 
     /**
@@ -99,11 +182,13 @@ public class FotosImoveisServices {
      * @return O modelo atualizado, ou null se não encontrado.
      * @throws RuntimeException Se houver erro de validação (ex: imovelId inválido).
      */
+    @Transactional
     public FotosImoveisModel update(Integer id, FotosImoveisDTO dto) {
         // 1. Buscar o modelo existente pelo ID
         Optional<FotosImoveisModel> optionalModel = repositorio.findById(id);
         if (optionalModel.isPresent()) {
             FotosImoveisModel model = optionalModel.get();
+            Integer imovelAnterior = imovelId(model);
 
             // 2. Atualizar os campos do modelo com os dados do DTO
             // Somente atualize os campos que fazem sentido e estão no DTO
@@ -126,8 +211,13 @@ public class FotosImoveisServices {
                 model.setImovel(novoImovel);
             }
 
-            // 3. Salvar o modelo atualizado no banco de dados
-            return repositorio.save(model);
+            // 3. Salvar o modelo atualizado no banco de dados (e invalidar a listagem dos dois imóveis, se mudou)
+            FotosImoveisModel salvo = repositorio.save(model);
+            fotosAlteradas(salvo);
+            if (imovelAnterior != null && !imovelAnterior.equals(imovelId(salvo))) {
+                imoveisServices.fotosAlteradas(imovelAnterior);
+            }
+            return salvo;
         } else {
             // 4. Se não encontrado, retornar null (o controller trata)
             return null;
@@ -148,6 +238,7 @@ public class FotosImoveisServices {
         }
     } */
 
+    @Transactional
     public boolean delete(Integer id) {
         try {
             // 1. Buscar a foto pelo ID para obter o caminho do arquivo
@@ -155,23 +246,19 @@ public class FotosImoveisServices {
             if (optionalFoto.isPresent()) {
                 FotosImoveisModel foto = optionalFoto.get();
 
-                // 2. Construir o caminho completo do arquivo
-                // Assumindo que 'foto.getCaminho()' armazena o caminho relativo ao uploadDir
-                Path caminhoArquivo = Paths.get(uploadDir, foto.getCaminho()).normalize();
-
-                // 3. Excluir o arquivo do sistema de arquivos
-                // Verifica se o arquivo existe antes de tentar excluí-lo
-                if (Files.exists(caminhoArquivo)) {
-                    Files.delete(caminhoArquivo);
-                    // System.out.println("Arquivo excluído: " + caminhoArquivo.toAbsolutePath());
-                } else {
-                    // Opcional: Logar um aviso se o arquivo não for encontrado
-                    System.out.println("Aviso: Arquivo não encontrado para exclusão: " + caminhoArquivo.toAbsolutePath());
-                    // Dependendo da sua política, você pode optar por lançar uma exceção ou continuar
-                }
-
-                // 4. Excluir o registro do banco de dados
+                // 2. Excluir o job de processamento e o registro do banco de dados
+                processamentoServices.removerPorFotoId(id);
                 repositorio.deleteById(id);
+                fotosAlteradas(foto);
+
+                // 3. Excluir os arquivos (original e versões redimensionadas) só depois do commit:
+                // se a exclusão voltar atrás, a foto continua com os arquivos
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        excluirArquivos(foto);
+                    }
+                });
                 return true;
             } else {
                 // Foto com o ID fornecido não foi encontrada
@@ -186,9 +273,50 @@ public class FotosImoveisServices {
         }
     }
 
+    // Arquivos de uma foto já excluída do banco. Roda depois do commit, então uma falha aqui só é registrada
+    private void excluirArquivos(FotosImoveisModel foto) {
+        try {
+            if (foto.getHash() != null) {
+                // Blob compartilhado: o arquivo só é apagado quando a última foto que o usa é excluída
+                blobsServices.liberar(foto.getHash());
+            } else {
+                // Fotos antigas (antes dos blobs): cada foto tem seus próprios arquivos
+                excluirArquivo(foto.getCaminho());
+                excluirArquivo(foto.getCaminho_thumb());
+                excluirArquivo(foto.getCaminho_card());
+                excluirArquivo(foto.getCaminho_full());
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Erro ao excluir os arquivos da foto " + foto.getId() + ": " + e.getMessage());
+        }
+    }
+
+    // Invalida os caches da listagem do imóvel da foto
+    private void fotosAlteradas(FotosImoveisModel foto) {
+        Integer imovelId = imovelId(foto);
+        if (imovelId != null) {
+            imoveisServices.fotosAlteradas(imovelId);
+        }
+    }
+
+    // ID do imóvel sem inicializar o proxy LAZY
+    private Integer imovelId(FotosImoveisModel foto) {
+        return foto.getImovel() != null ? foto.getImovel().getId() : null;
+    }
+
+    // Exclui um arquivo do armazenamento (o LocalPhotoStorage apenas avisa se ele não existir)
+    private void excluirArquivo(String caminhoRelativo) throws IOException {
+        if (caminhoRelativo == null) {
+            return;
+        }
+        storage.excluir(caminhoRelativo);
+    }
+
     // --- MÉTODO PARA BUSCAR POR IMÓVEL (usado no controller) ---
-    public List<FotosImoveisModel> findByImovelId(Integer imovelId) {
-        return repositorio.findByImovelId(imovelId);
+    // Já na ordem de exibição (ordem, depois ID)
+    @Transactional(readOnly = true)
+    public List<FotosImoveisDTO> findByImovelId(Integer imovelId) {
+        return repositorio.findDtoByImovelIdOrdenadas(imovelId);
     }
 
     // --- NOVO MÉTODO PARA UPLOAD ---
@@ -202,6 +330,7 @@ public class FotosImoveisServices {
      * @return O modelo salvo no banco.
      * @throws RuntimeException Se o imóvel não for encontrado.
      */
+    @Transactional
     public FotosImoveisModel createFromDtoAndPath(FotosImoveisDTO dto, String caminhoRelativo, String nomeArquivo) {
         // 1. Buscar o imóvel associado
         ImoveisModel imovel = imoveisRepository.findById(dto.getImovelId())
@@ -218,7 +347,9 @@ public class FotosImoveisServices {
         model.setImovel(imovel);
 
         // 3. Salvar o modelo no banco de dados
-        return repositorio.save(model);
+        FotosImoveisModel salvo = repositorio.save(model);
+        fotosAlteradas(salvo);
+        return salvo;
     }
 
 }
\ No newline at end of file
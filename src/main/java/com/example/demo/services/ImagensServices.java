@@ -0,0 +1,168 @@
+package com.example.demo.services;
+
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Geração das versões redimensionadas (derivadas) das fotos de imóveis.
+ * Cada upload gera uma miniatura (thumb), uma versão para cards da listagem (card)
+ * e uma versão para a página de detalhe (full), todas em JPEG otimizado para web.
+ */
+@Service
+public class ImagensServices {
+
+    // Tamanhos gerados: o maior lado da imagem fica limitado ao valor em pixels
+    public enum Tamanho {
+        THUMB(200), CARD(480), FULL(1280);
+
+        private final int maiorLado;
+
+        Tamanho(int maiorLado) {
+            this.maiorLado = maiorLado;
+        }
+
+        public int getMaiorLado() {
+            return maiorLado;
+        }
+
+        public String getSufixo() {
+            return name().toLowerCase();
+        }
+
+        /**
+         * Converte o parâmetro recebido do cliente (ex: "thumb") no enum.
+         *
+         * @param valor O nome do tamanho (sem diferenciar maiúsculas/minúsculas).
+         * @return O tamanho, ou null se o valor for nulo/vazio (= original).
+         * @throws IllegalArgumentException Se o valor não corresponder a nenhum tamanho.
+         */
+        public static Tamanho fromParametro(String valor) {
+            if (valor == null || valor.isBlank() || valor.equalsIgnoreCase("original")) {
+                return null;
+            }
+            return Tamanho.valueOf(valor.trim().toUpperCase());
+        }
+    }
+
+    private static final float QUALIDADE_JPEG = 0.8f;
+
+    /**
+     * Gera as versões derivadas de uma imagem, gravando-as ao lado do arquivo original.
+     *
+     * @param original     O caminho absoluto do arquivo original.
+     * @param subDirPath   O diretório relativo (ao uploadDir) onde o original está.
+     * @return Os caminhos relativos de cada derivada; vazio se o formato não for suportado pelo ImageIO.
+     * @throws IOException Se houver erro ao ler ou gravar os arquivos.
+     */
+    public Map<Tamanho, String> gerarDerivadas(Path original, String subDirPath) throws IOException {
+        Map<Tamanho, String> caminhos = new EnumMap<>(Tamanho.class);
+
+        // Blobs iguais geram as mesmas derivadas: se já existem (outra foto com o mesmo conteúdo), reaproveita
+        for (Tamanho tamanho : Tamanho.values()) {
+            String nomeDerivada = nomeDerivada(original.getFileName().toString(), tamanho);
+            if (!Files.exists(original.resolveSibling(nomeDerivada))) {
+                caminhos.clear();
+                break;
+            }
+            caminhos.put(tamanho, Paths.get(subDirPath, nomeDerivada).toString());
+        }
+        if (!caminhos.isEmpty()) {
+            return caminhos;
+        }
+
+        BufferedImage imagem = ImageIO.read(original.toFile());
+        if (imagem == null) {
+            // Formato não suportado (ex: HEIC/WebP): os clientes usam o original
+            return caminhos;
+        }
+
+        for (Tamanho tamanho : Tamanho.values()) {
+            String nomeDerivada = nomeDerivada(original.getFileName().toString(), tamanho);
+            gravarJpeg(redimensionar(imagem, tamanho.getMaiorLado()), original.resolveSibling(nomeDerivada));
+            caminhos.put(tamanho, Paths.get(subDirPath, nomeDerivada).toString());
+        }
+        return caminhos;
+    }
+
+    /**
+     * Nome do arquivo de uma derivada, gravada ao lado do original (ex: abc.png -> abc-thumb.jpg).
+     *
+     * @param nomeOriginal O nome do arquivo original.
+     * @param tamanho      O tamanho da derivada.
+     * @return O nome do arquivo da derivada.
+     */
+    public static String nomeDerivada(String nomeOriginal, Tamanho tamanho) {
+        return nomeBase(nomeOriginal) + "-" + tamanho.getSufixo() + ".jpg";
+    }
+
+    // Redimensiona mantendo a proporção; reduções grandes são feitas pela metade em etapas
+    // (interpolação bilinear em um único passo perde muita qualidade)
+    private BufferedImage redimensionar(BufferedImage origem, int maiorLado) {
+        int largura = origem.getWidth();
+        int altura = origem.getHeight();
+        double escala = Math.min(1.0, (double) maiorLado / Math.max(largura, altura));
+        int larguraFinal = Math.max(1, (int) Math.round(largura * escala));
+        int alturaFinal = Math.max(1, (int) Math.round(altura * escala));
+
+        BufferedImage atual = origem;
+        while (largura / 2 >= larguraFinal && altura / 2 >= alturaFinal) {
+            largura /= 2;
+            altura /= 2;
+            atual = desenhar(atual, largura, altura);
+        }
+        return desenhar(atual, larguraFinal, alturaFinal);
+    }
+
+    // Desenha em uma imagem RGB (JPEG não tem transparência: o fundo fica branco)
+    private BufferedImage desenhar(BufferedImage origem, int largura, int altura) {
+        BufferedImage destino = new BufferedImage(largura, altura, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = destino.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, largura, altura);
+            g.drawImage(origem, 0, 0, largura, altura, null);
+        } finally {
+            g.dispose();
+        }
+        return destino;
+    }
+
+    // Grava em JPEG com qualidade fixa (sem metadados EXIF do original)
+    private void gravarJpeg(BufferedImage imagem, Path destino) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(QUALIDADE_JPEG);
+        // O ImageOutputStream não trunca arquivos existentes
+        Files.deleteIfExists(destino);
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(destino.toFile())) {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(imagem, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static String nomeBase(String nomeArquivo) {
+        int ponto = nomeArquivo.lastIndexOf('.');
+        return ponto > 0 ? nomeArquivo.substring(0, ponto) : nomeArquivo;
+    }
+}
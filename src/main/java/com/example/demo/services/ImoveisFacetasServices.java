@@ -0,0 +1,227 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.ImoveisFacetasDTO;
+import com.example.demo.model.ImoveisModel;
+import com.example.demo.repository.ImoveisRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice em memória para busca facetada de imóveis.
+ * Para cada faceta (bairro, tipo, status, finalidade, dormitorios) e cada valor, mantém um BitSet
+ * com os IDs dos imóveis que possuem aquele valor. Buscas e contagens são feitas com AND/OR
+ * entre os BitSets, sem consultar o banco.
+ *
+ * O índice é montado na inicialização e atualizado pelo ImoveisServices (insert/update/delete).
+ */
+@Service
+public class ImoveisFacetasServices {
+
+    public static final String BAIRRO = "bairro";
+    public static final String TIPO = "tipo";
+    public static final String STATUS = "status";
+    public static final String FINALIDADE = "finalidade";
+    public static final String DORMITORIOS = "dormitorios";
+
+    private static final List<String> FACETAS = List.of(BAIRRO, TIPO, STATUS, FINALIDADE, DORMITORIOS);
+
+    @Autowired
+    private ImoveisRepository repositorio;
+
+    // faceta -> valor -> IDs dos imóveis
+    private final Map<String, Map<String, BitSet>> indice = new HashMap<>();
+
+    // Todos os IDs indexados (base para buscas sem filtro)
+    private final BitSet todos = new BitSet();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ImoveisFacetasServices() {
+        for (String faceta : FACETAS) {
+            indice.put(faceta, new HashMap<>());
+        }
+    }
+
+    // --- CARGA INICIAL ---
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        List<Object[]> linhas = repositorio.findValoresFacetas();
+        lock.writeLock().lock();
+        try {
+            todos.clear();
+            indice.values().forEach(Map::clear);
+            for (Object[] linha : linhas) {
+                adicionar((Integer) linha[0], linha[1], linha[2], linha[3], linha[4], linha[5]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // --- ATUALIZAÇÃO (chamado pelo ImoveisServices após salvar) ---
+    public void indexar(ImoveisModel model) {
+        if (model == null || model.getId() == null) {
+            return;
+        }
+        Integer bairroId = model.getBairro() != null ? model.getBairro().getId() : null;
+        Integer tipoId = model.getTipoImovel() != null ? model.getTipoImovel().getId() : null;
+        lock.writeLock().lock();
+        try {
+            limpar(model.getId());
+            adicionar(model.getId(), bairroId, tipoId, model.getStatus(), model.getFinalidade(), model.getDormitorios());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Reindexa vários imóveis a partir das linhas de findValoresFacetasByIdIn (atualização em lote)
+    public void indexar(List<Object[]> linhas) {
+        lock.writeLock().lock();
+        try {
+            for (Object[] linha : linhas) {
+                limpar((Integer) linha[0]);
+                adicionar((Integer) linha[0], linha[1], linha[2], linha[3], linha[4], linha[5]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remover(Integer id) {
+        if (id == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            limpar(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Busca facetada. Dentro de uma faceta os valores são combinados com OR e entre facetas com AND.
+     * As contagens de cada faceta desconsideram o filtro da própria faceta (contagem "disjuntiva"),
+     * para o cliente mostrar quantos imóveis teria ao trocar/adicionar um valor.
+     *
+     * @param filtros  faceta -> valores selecionados (facetas ausentes ou vazias não filtram).
+     * @param pagina   O número da página (começa em 0).
+     * @param tamanho  A quantidade de IDs por página.
+     * @return O total, os IDs da página e as contagens por faceta.
+     */
+    public ImoveisFacetasDTO buscar(Map<String, ? extends Collection<String>> filtros, int pagina, int tamanho) {
+        lock.readLock().lock();
+        try {
+            // Um BitSet por faceta filtrada (OR dos valores selecionados)
+            Map<String, BitSet> porFaceta = new LinkedHashMap<>();
+            for (String faceta : FACETAS) {
+                Collection<String> valores = filtros.get(faceta);
+                if (valores != null && !valores.isEmpty()) {
+                    porFaceta.put(faceta, uniao(faceta, valores));
+                }
+            }
+
+            BitSet resultado = intersecao(porFaceta, null);
+
+            Map<String, Map<String, Integer>> contagens = new LinkedHashMap<>();
+            for (String faceta : FACETAS) {
+                BitSet base = porFaceta.containsKey(faceta) ? intersecao(porFaceta, faceta) : resultado;
+                Map<String, Integer> porValor = new TreeMap<>();
+                for (Map.Entry<String, BitSet> entry : indice.get(faceta).entrySet()) {
+                    BitSet bits = (BitSet) entry.getValue().clone();
+                    bits.and(base);
+                    int quantidade = bits.cardinality();
+                    if (quantidade > 0) {
+                        porValor.put(entry.getKey(), quantidade);
+                    }
+                }
+                contagens.put(faceta, porValor);
+            }
+
+            return new ImoveisFacetasDTO(resultado.cardinality(), pagina(resultado, pagina, tamanho), contagens);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- MÉTODOS AUXILIARES (chamados com o lock já adquirido) ---
+
+    private void adicionar(Integer id, Object bairroId, Object tipoId, Object status, Object finalidade, Object dormitorios) {
+        todos.set(id);
+        marcar(BAIRRO, bairroId, id);
+        marcar(TIPO, tipoId, id);
+        marcar(STATUS, status, id);
+        marcar(FINALIDADE, finalidade, id);
+        marcar(DORMITORIOS, dormitorios, id);
+    }
+
+    private void marcar(String faceta, Object valor, Integer id) {
+        if (valor == null) {
+            return;
+        }
+        String chave = valor instanceof Enum<?> e ? e.name() : valor.toString();
+        indice.get(faceta).computeIfAbsent(chave, k -> new BitSet()).set(id);
+    }
+
+    private void limpar(Integer id) {
+        todos.clear(id);
+        for (Map<String, BitSet> valores : indice.values()) {
+            // Remove o ID de todos os valores e descarta os valores que ficaram vazios
+            valores.values().removeIf(bits -> {
+                bits.clear(id);
+                return bits.isEmpty();
+            });
+        }
+    }
+
+    private BitSet uniao(String faceta, Collection<String> valores) {
+        BitSet bits = new BitSet();
+        for (String valor : valores) {
+            BitSet doValor = indice.get(faceta).get(valor);
+            if (doValor != null) {
+                bits.or(doValor);
+            }
+        }
+        return bits;
+    }
+
+    // AND de todas as facetas filtradas, exceto a informada em "ignorar"
+    private BitSet intersecao(Map<String, BitSet> porFaceta, String ignorar) {
+        BitSet bits = (BitSet) todos.clone();
+        for (Map.Entry<String, BitSet> entry : porFaceta.entrySet()) {
+            if (!entry.getKey().equals(ignorar)) {
+                bits.and(entry.getValue());
+            }
+        }
+        return bits;
+    }
+
+    // Percorre os IDs do maior para o menor (mais recentes primeiro)
+    private List<Integer> pagina(BitSet resultado, int pagina, int tamanho) {
+        List<Integer> ids = new ArrayList<>(tamanho);
+        int pular = pagina * tamanho;
+        for (int id = resultado.previousSetBit(resultado.length() - 1); id >= 0 && ids.size() < tamanho;
+                id = resultado.previousSetBit(id - 1)) {
+            if (pular > 0) {
+                pular--;
+            } else {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+}
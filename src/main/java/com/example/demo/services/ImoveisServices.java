@@ -1,23 +1,74 @@
 package com.example.demo.services;
 
+import com.example.demo.config.CacheConfig;
+import com.example.demo.dto.AtualizacaoLoteImoveisDTO;
+import com.example.demo.dto.ImoveisCursorDTO;
+import com.example.demo.dto.ImoveisDetalheDTO;
 import com.example.demo.dto.ImoveisDTO;
+import com.example.demo.dto.ImoveisFacetasDTO;
+import com.example.demo.dto.ImoveisFiltroDTO;
 import com.example.demo.dto.ImoveisListDTO;
+import com.example.demo.dto.VersaoColecaoDTO;
 import com.example.demo.model.ImoveisModel;
 import com.example.demo.model.TiposImoveisModel;
 import com.example.demo.model.BairrosModel;
 import com.example.demo.model.UserModel;
+import com.example.demo.repository.FotosImoveisRepository;
 import com.example.demo.repository.ImoveisRepository;
+import com.example.demo.repository.ImoveisSpecifications;
 import com.example.demo.repository.TiposImoveisRepository;
 import com.example.demo.repository.BairrosRepository;
 import com.example.demo.repository.UserRepository; // Você já tem isso
+import com.example.demo.util.CursorUtil;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 @Service
 public class ImoveisServices {
@@ -34,6 +85,27 @@ public class ImoveisServices {
     @Autowired
     private UserRepository usuariosRepository; // Para buscar o usuário
 
+    @Autowired
+    private FotosImoveisRepository fotosRepository; // Fotos da página de detalhe
+
+    @Autowired
+    private ObjectMapper objectMapper; // Para escrever a exportação em NDJSON
+
+    @Autowired
+    private ImoveisFacetasServices facetas; // Índice de facetas em memória
+
+    @Autowired
+    private CacheManager cacheManager; // Evicção por ID nas alterações em lote
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // IDs por UPDATE na alteração em lote (limita o tamanho da lista do IN)
+    private static final int TAMANHO_BLOCO_LOTE = 1000;
+
     /* public List<ImoveisModel> getAll() {
         return repositorio.findAll();
     }
@@ -44,25 +116,291 @@ public class ImoveisServices {
     } */
 
     // --- MÉTODO GET ALL ATUALIZADO ---
+    // A listagem usa a consulta de projeção do repositório: um único SELECT monta os DTOs
+    @Transactional(readOnly = true)
     public List<ImoveisListDTO> getAll() {
-        List<ImoveisModel> lista = repositorio.findAll();
-        // Converter a lista de Model para DTO
-        return lista.stream()
-                .map(imovel -> new ImoveisListDTO(imovel)) // Usando o construtor que popula os dados dos relacionamentos
-                .collect(Collectors.toList());
+        return preencherCapas(repositorio.findAllListagem());
     }
 
+    // As primeiras páginas ficam em cache (evictadas em qualquer escrita de imóvel)
+    @Cacheable(cacheNames = CacheConfig.IMOVEIS_PAGINAS, key = "#pageable",
+            condition = "#pageable.paged && #pageable.pageNumber < T(com.example.demo.config.CacheConfig).PAGINAS_EM_CACHE")
+    @Transactional(readOnly = true)
     public Page<ImoveisListDTO> getAll(Pageable pageable) {
-        Page<ImoveisModel> pageModel = repositorio.findAll(pageable);
-        // Converter a página de Model para DTO
-        return pageModel.map(imovel -> new ImoveisListDTO(imovel)); // Usando o construtor que popula os dados dos relacionamentos
+        return preencherCapas(repositorio.findAllListagem(pageable));
+    }
+
+    /**
+     * Busca paginada combinando vários filtros em uma única consulta dinâmica.
+     * Com palavras-chave (filtro.q) a busca usa o índice FULLTEXT junto com os demais filtros e,
+     * sem sort na paginação, ordena por relevância.
+     *
+     * @param filtro   Os filtros (somente os preenchidos são aplicados).
+     * @param pageable A paginação/ordenação.
+     * @return A página de imóveis no formato de listagem.
+     */
+    @Transactional(readOnly = true)
+    public Page<ImoveisListDTO> buscar(ImoveisFiltroDTO filtro, Pageable pageable) {
+        Page<ImoveisModel> pageModel = repositorio.findAll(ImoveisSpecifications.comFiltro(filtro), pageable);
+        // Os relacionamentos já vieram no JOIN FETCH da Specification
+        return preencherCapas(pageModel.map(ImoveisListDTO::new));
+    }
+
+    /**
+     * Busca facetada no índice em memória. As contagens e os IDs vêm do índice;
+     * apenas os imóveis da página são carregados do banco (uma consulta IN).
+     *
+     * @param filtros faceta -> valores selecionados.
+     * @param pagina  O número da página (começa em 0).
+     * @param tamanho A quantidade de imóveis por página.
+     * @return O resultado com total, imóveis da página e contagens por faceta.
+     */
+    @Transactional(readOnly = true)
+    public ImoveisFacetasDTO buscarFacetas(Map<String, ? extends Collection<String>> filtros, int pagina, int tamanho) {
+        ImoveisFacetasDTO resultado = facetas.buscar(filtros, pagina, tamanho);
+        List<Integer> ids = resultado.getIds();
+        if (ids.isEmpty()) {
+            resultado.setConteudo(List.of());
+        } else {
+            List<ImoveisListDTO> conteudo = new ArrayList<>(preencherCapas(repositorio.findListagemByIdIn(ids)));
+            // Mantém a ordem do índice (mais recentes primeiro)
+            conteudo.sort(Comparator.comparingInt(dto -> ids.indexOf(dto.getId())));
+            resultado.setConteudo(conteudo);
+        }
+        return resultado;
+    }
+
+    // Paginação por offset sem o COUNT(*) (o cliente só precisa saber se há próxima página)
+    @Transactional(readOnly = true)
+    public Slice<ImoveisListDTO> getSlice(Pageable pageable) {
+        return preencherCapas(repositorio.findSliceListagem(pageable));
+    }
+
+    /**
+     * Paginação por cursor (keyset) da listagem de imóveis. O cursor guarda o valor do campo ordenado
+     * e o ID do último imóvel da página, e a próxima página começa logo depois dele
+     * (WHERE campo > :valor OR (campo = :valor AND id > :id)), sem OFFSET.
+     *
+     * Ordenações aceitas: id, preco_venda, preco_aluguel e area_total, cada uma asc ou desc (todas com
+     * índice em ImoveisModel). Imóveis sem o valor (ex: sem preço de aluguel) vêm no fim, pelo ID.
+     *
+     * @param after        O token do cursor recebido na página anterior (null para a primeira página).
+     * @param tamanho      A quantidade de imóveis por página.
+     * @param incluirTotal Se true, executa também o COUNT(*) para preencher o total.
+     * @param ordenacao    "campo,direcao" (ex: "preco_venda,asc"); o cursor só vale para a ordenação em que foi gerado.
+     * @return A página com o cursor para a próxima.
+     * @throws IllegalArgumentException Se o cursor ou a ordenação forem inválidos.
+     */
+    @Transactional(readOnly = true)
+    public ImoveisCursorDTO getPorCursor(String after, int tamanho, boolean incluirTotal, String ordenacao) {
+        OrdemCursor ordem = OrdemCursor.de(ordenacao);
+        CursorUtil.Posicao posicao = null;
+        if (after != null && !after.isBlank()) {
+            posicao = CursorUtil.decode(after);
+            if (!posicao.ordenacao().equals(ordem.texto())) {
+                throw new IllegalArgumentException("O cursor foi gerado para outra ordenação (" + posicao.ordenacao() + ").");
+            }
+        }
+
+        // Busca um registro a mais para saber se existe próxima página
+        List<ImoveisListDTO> lista = buscarAposCursor(ordem, posicao, tamanho + 1);
+        boolean temMais = lista.size() > tamanho;
+        if (temMais) {
+            lista = lista.subList(0, tamanho);
+        }
+        String proximoCursor = null;
+        if (temMais) {
+            ImoveisListDTO ultimo = lista.get(lista.size() - 1);
+            proximoCursor = CursorUtil.encode(ordem.texto(), ordem.valor(ultimo), ultimo.getId());
+        }
+        Long total = incluirTotal ? repositorio.count() : null;
+        return new ImoveisCursorDTO(preencherCapas(lista), proximoCursor, temMais, total);
+    }
+
+    // Campos aceitos na ordenação por cursor (cada um com índice; o InnoDB inclui o id no fim do índice)
+    private static final Set<String> CAMPOS_CURSOR = Set.of("id", "preco_venda", "preco_aluguel", "area_total");
+
+    private record OrdemCursor(String campo, boolean decrescente) {
+
+        static OrdemCursor de(String ordenacao) {
+            String[] partes = (ordenacao == null || ordenacao.isBlank() ? "id,desc" : ordenacao).split(",");
+            String campo = partes[0].trim();
+            String direcao = partes.length > 1 ? partes[1].trim().toLowerCase(Locale.ROOT) : "asc";
+            if (!CAMPOS_CURSOR.contains(campo) || partes.length > 2 || !(direcao.equals("asc") || direcao.equals("desc"))) {
+                throw new IllegalArgumentException("Ordenação não suportada na paginação por cursor: " + ordenacao
+                        + " (use id, preco_venda, preco_aluguel ou area_total, com asc ou desc).");
+            }
+            return new OrdemCursor(campo, direcao.equals("desc"));
+        }
+
+        String texto() {
+            return campo + (decrescente ? ",desc" : ",asc");
+        }
+
+        // Valor do campo ordenado no imóvel (null para a ordenação por id, que já vai no cursor)
+        BigDecimal valor(ImoveisListDTO imovel) {
+            return switch (campo) {
+                case "preco_venda" -> imovel.getPreco_venda();
+                case "preco_aluguel" -> imovel.getPreco_aluguel();
+                case "area_total" -> imovel.getArea_total();
+                default -> null;
+            };
+        }
     }
 
+    // Cada consulta é um intervalo do índice (campo, id): primeiro os imóveis com o campo preenchido,
+    // depois, se a página não encheu, os com o campo vazio (campo IS NULL, pelo id)
+    private List<ImoveisListDTO> buscarAposCursor(OrdemCursor ordem, CursorUtil.Posicao posicao, int limite) {
+        String direcao = ordem.decrescente() ? " DESC" : " ASC";
+        String depois = ordem.decrescente() ? " < " : " > ";
+        if (ordem.campo().equals("id")) {
+            TypedQuery<ImoveisListDTO> query = entityManager.createQuery(ImoveisRepository.LISTAGEM_SELECT
+                    + (posicao != null ? " WHERE i.id" + depois + ":id" : "") + " ORDER BY i.id" + direcao,
+                    ImoveisListDTO.class);
+            if (posicao != null) {
+                query.setParameter("id", posicao.id());
+            }
+            return query.setMaxResults(limite).getResultList();
+        }
+
+        String campo = "i." + ordem.campo();
+        List<ImoveisListDTO> lista = new ArrayList<>();
+        if (posicao == null || posicao.valor() != null) {
+            String condicao = campo + " IS NOT NULL" + (posicao == null ? ""
+                    : " AND (" + campo + depois + ":valor OR (" + campo + " = :valor AND i.id" + depois + ":id))");
+            TypedQuery<ImoveisListDTO> query = entityManager.createQuery(ImoveisRepository.LISTAGEM_SELECT
+                    + " WHERE " + condicao + " ORDER BY " + campo + direcao + ", i.id" + direcao, ImoveisListDTO.class);
+            if (posicao != null) {
+                query.setParameter("valor", posicao.valor()).setParameter("id", posicao.id());
+            }
+            lista.addAll(query.setMaxResults(limite).getResultList());
+        }
+        if (lista.size() < limite) {
+            boolean continuacao = posicao != null && posicao.valor() == null; // Cursor já dentro dos vazios
+            TypedQuery<ImoveisListDTO> query = entityManager.createQuery(ImoveisRepository.LISTAGEM_SELECT
+                    + " WHERE " + campo + " IS NULL" + (continuacao ? " AND i.id" + depois + ":id" : "")
+                    + " ORDER BY i.id" + direcao, ImoveisListDTO.class);
+            if (continuacao) {
+                query.setParameter("id", posicao.id());
+            }
+            lista.addAll(query.setMaxResults(limite - lista.size()).getResultList());
+        }
+        return lista;
+    }
+
+    /**
+     * Escreve o catálogo completo em NDJSON (um ImoveisListDTO por linha) no OutputStream.
+     * Os registros são lidos em fluxo do banco e escritos um a um, então o consumo de memória
+     * não depende da quantidade de imóveis.
+     *
+     * @param out O stream de saída (corpo da resposta HTTP).
+     * @throws IOException Se houver erro ao escrever na saída.
+     */
+    @Transactional(readOnly = true)
+    public void exportarNdjson(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(ImoveisListDTO.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try (Stream<ImoveisListDTO> stream = repositorio.streamAllListagem()) {
+            Iterator<ImoveisListDTO> iterator = stream.iterator();
+            int linhas = 0;
+            while (iterator.hasNext()) {
+                writer.writeValue(out, iterator.next());
+                out.write('\n');
+                // Descarrega periodicamente para o cliente começar a receber os dados
+                if (++linhas % 500 == 0) {
+                    out.flush();
+                }
+            }
+        }
+        out.flush();
+    }
+
+    // Versão da coleção para GET condicional (ETag / Last-Modified). A listagem também mostra o nome
+    // do tipo e do bairro e o nome/e-mail do usuário, então as versões dessas tabelas entram junto;
+    // mudanças nas fotos (capa) marcam o próprio imóvel como atualizado (ver fotosAlteradas)
+    @Transactional(readOnly = true)
+    public VersaoColecaoDTO getVersao() {
+        return VersaoColecaoDTO.combinar(repositorio.findVersao(), tiposImoveisRepository.findVersao(),
+                bairrosRepository.findVersao(), usuariosRepository.findVersao());
+    }
+
+    // Busca o imóvel já no formato de listagem (usado pelo GET /imoveis/{id})
+    @Cacheable(cacheNames = CacheConfig.IMOVEIS, key = "#id", unless = "#result == null")
+    @Transactional(readOnly = true)
+    public ImoveisListDTO getById(Integer id) {
+        ImoveisListDTO dto = repositorio.findListagemById(id).orElse(null);
+        if (dto != null) {
+            preencherCapas(List.of(dto));
+        }
+        return dto;
+    }
+
+    // A capa aparece na listagem e no GET /imoveis/{id}: chamado pelos services de fotos
+    // sempre que as fotos de um imóvel mudam. Invalida os caches e avança o atualizadoEm do imóvel,
+    // para a ETag da listagem (getVersao) não responder 304 com a capa antiga
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.IMOVEIS, key = "#imovelId"),
+            @CacheEvict(cacheNames = CacheConfig.IMOVEIS_PAGINAS, allEntries = true)
+    })
+    @Transactional
+    public void fotosAlteradas(Integer imovelId) {
+        repositorio.marcarAtualizado(imovelId, Instant.now());
+    }
+
+    /**
+     * Preenche a foto de capa dos imóveis com uma única consulta pelos IDs da lista
+     * (WHERE imovel_id IN (...) AND capa = true), em vez de uma consulta por imóvel.
+     *
+     * @param lista Os DTOs da página (alterados no lugar).
+     * @return A própria lista, para encadear no return.
+     */
+    private <T extends Iterable<ImoveisListDTO>> T preencherCapas(T lista) {
+        List<Integer> ids = new ArrayList<>();
+        lista.forEach(dto -> ids.add(dto.getId()));
+        if (ids.isEmpty()) {
+            return lista;
+        }
+        Map<Integer, Object[]> capas = new HashMap<>();
+        for (int i = 0; i < ids.size(); i += TAMANHO_BLOCO_LOTE) {
+            List<Integer> bloco = ids.subList(i, Math.min(i + TAMANHO_BLOCO_LOTE, ids.size()));
+            for (Object[] linha : fotosRepository.findCapasByImovelIdIn(bloco)) {
+                capas.putIfAbsent((Integer) linha[0], linha); // Mantém a primeira na ordem de exibição
+            }
+        }
+        for (ImoveisListDTO dto : lista) {
+            Object[] capa = capas.get(dto.getId());
+            if (capa != null) {
+                dto.setCapa_caminho((String) capa[1]);
+                dto.setCapa_caminho_card(capa[2] != null ? (String) capa[2] : (String) capa[1]);
+            }
+        }
+        return lista;
+    }
+
+    /**
+     * Monta a página de detalhe em duas consultas: o imóvel com tipo, bairro e proprietário
+     * (projeção da listagem) e as fotos já ordenadas por "ordem".
+     *
+     * @param id O ID do imóvel.
+     * @return O detalhe, ou null se o imóvel não existir.
+     */
+    @Transactional(readOnly = true)
+    public ImoveisDetalheDTO getDetalhes(Integer id) {
+        ImoveisListDTO imovel = repositorio.findListagemById(id).orElse(null);
+        if (imovel == null) {
+            return null;
+        }
+        return new ImoveisDetalheDTO(imovel, fotosRepository.findDtoByImovelIdOrdenadas(id));
+    }
+
+    @Transactional(readOnly = true)
     public ImoveisModel find(Integer id) {
         Optional<ImoveisModel> model = repositorio.findById(id);
         return model.orElse(null);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.IMOVEIS_PAGINAS, allEntries = true)
+    @Transactional
     public ImoveisModel insert(ImoveisModel model) {
         // Verificar se as entidades relacionadas existem
         if (model.getTipoImovel() != null) {
@@ -80,7 +418,9 @@ public class ImoveisServices {
             if (usuario == null) throw new RuntimeException("Usuário não encontrado");
             model.setUsuario(usuario);
         }
-        return repositorio.save(model);
+        ImoveisModel salvo = repositorio.save(model);
+        aposCommit(() -> facetas.indexar(salvo));
+        return salvo;
     }
 
     /* public ImoveisModel insert(ImoveisDTO dto) {
@@ -123,63 +463,152 @@ public class ImoveisServices {
         return repositorio.save(model);
     } */ 
  
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.IMOVEIS, key = "#model.id"),
+            @CacheEvict(cacheNames = CacheConfig.IMOVEIS_PAGINAS, allEntries = true)
+    })
+    @Transactional
     public ImoveisModel update(ImoveisModel model) {
-        try {
-            if (find(model.getId()) != null) {
-                // Verificar relacionamentos como no insert
-                if (model.getTipoImovel() != null) {
-                    TiposImoveisModel tipo = tiposImoveisRepository.findById(model.getTipoImovel().getId()).orElse(null);
-                    if (tipo == null) throw new RuntimeException("Tipo de imóvel não encontrado");
-                    model.setTipoImovel(tipo);
-                }
-                if (model.getBairro() != null) {
-                    BairrosModel bairro = bairrosRepository.findById(model.getBairro().getId()).orElse(null);
-                    if (bairro == null) throw new RuntimeException("Bairro não encontrado");
-                    model.setBairro(bairro);
-                }
-                if (model.getUsuario() != null) {
-                    UserModel usuario = usuariosRepository.findById(model.getUsuario().getId()).orElse(null);
-                    if (usuario == null) throw new RuntimeException("Usuário não encontrado");
-                    model.setUsuario(usuario);
-                }
-                return repositorio.save(model);
-            } else {
-                return null;
-            }
-        } catch (Exception e) {
+        // Verificação e escrita na mesma transação; falhas de banco sobem para o controller
+        if (model.getId() == null || !repositorio.existsById(model.getId())) {
             return null;
         }
+        // Verificar relacionamentos como no insert
+        if (model.getTipoImovel() != null) {
+            TiposImoveisModel tipo = tiposImoveisRepository.findById(model.getTipoImovel().getId()).orElse(null);
+            if (tipo == null) throw new RuntimeException("Tipo de imóvel não encontrado");
+            model.setTipoImovel(tipo);
+        }
+        if (model.getBairro() != null) {
+            BairrosModel bairro = bairrosRepository.findById(model.getBairro().getId()).orElse(null);
+            if (bairro == null) throw new RuntimeException("Bairro não encontrado");
+            model.setBairro(bairro);
+        }
+        if (model.getUsuario() != null) {
+            UserModel usuario = usuariosRepository.findById(model.getUsuario().getId()).orElse(null);
+            if (usuario == null) throw new RuntimeException("Usuário não encontrado");
+            model.setUsuario(usuario);
+        }
+        ImoveisModel salvo = repositorio.save(model);
+        aposCommit(() -> facetas.indexar(salvo));
+        return salvo;
     }
 
     // --- MÉTODO INSERT USANDO DTO (NOVO) ---
+    @CacheEvict(cacheNames = CacheConfig.IMOVEIS_PAGINAS, allEntries = true)
+    @Transactional
     public ImoveisModel insert(ImoveisDTO dto) {
         ImoveisModel model = new ImoveisModel();
 
         // Copia os dados básicos do DTO para o Model
         copyDtoToModel(dto, model);
 
-        // Salva o model no banco
-        return repositorio.save(model);
+        // Salva o model no banco (o flush faz a FK inexistente falhar aqui) e atualiza o índice de facetas
+        ImoveisModel salvo;
+        try {
+            salvo = repositorio.saveAndFlush(model);
+        } catch (DataIntegrityViolationException e) {
+            throw traduzirViolacao(e, dto);
+        }
+        aposCommit(() -> facetas.indexar(salvo));
+        return salvo;
     }
 
-    // --- MÉTODO UPDATE USANDO DTO (NOVO) ---
-    public ImoveisModel update(Integer id, ImoveisDTO dto) {
-        Optional<ImoveisModel> optionalModel = repositorio.findById(id);
-        if (optionalModel.isPresent()) {
-            ImoveisModel model = optionalModel.get();
+    /**
+     * Atualiza o imóvel a partir do DTO carregando a linha uma única vez: a verificação de permissão,
+     * a cópia dos campos e o UPDATE (só das colunas alteradas, ver @DynamicUpdate) acontecem na mesma
+     * transação, sem SELECT nos relacionamentos.
+     *
+     * @param id            O ID do imóvel.
+     * @param dto           Os novos dados.
+     * @param usuarioLogado Quem está alterando; corretor só altera os próprios imóveis e não pode
+     *                      transferi-los para outro usuário.
+     * @return O imóvel atualizado, ou null se não existir.
+     * @throws AcessoNegadoException Se o usuário não puder alterar o imóvel.
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.IMOVEIS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.IMOVEIS_PAGINAS, allEntries = true)
+    })
+    @Transactional
+    public ImoveisModel update(Integer id, ImoveisDTO dto, UserModel usuarioLogado) {
+        ImoveisModel model = repositorio.findById(id).orElse(null);
+        if (model == null) {
+            return null;
+        }
+
+        // Verificar permissão: Admin pode editar qualquer um, Corretor só o próprio
+        if (!UserModel.Tipo.ADMIN.equals(usuarioLogado.getTipo())) {
+            Integer donoId = model.getUsuario() != null ? model.getUsuario().getId() : null;
+            if (!usuarioLogado.getId().equals(donoId)
+                    || (dto.getUsuarioId() != null && !dto.getUsuarioId().equals(usuarioLogado.getId()))) {
+                throw new AcessoNegadoException("Sem permissão para alterar o imóvel " + id + ".");
+            }
+        }
 
-            // Copia os dados do DTO para o Model existente
-            copyDtoToModel(dto, model);
+        // Copia os dados do DTO para o Model gerenciado; o dirty checking gera o UPDATE no flush
+        copyDtoToModel(dto, model);
+        try {
+            repositorio.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw traduzirViolacao(e, dto);
+        }
+        aposCommit(() -> facetas.indexar(model));
+        return model;
+    }
 
-            // Salva as alterações
-            return repositorio.save(model);
+    // Alterações do índice de facetas (em memória) só depois do commit: se a transação voltar atrás
+    // (constraint, deadlock), o índice continua igual ao banco. Fora de transação aplica na hora
+    private void aposCommit(Runnable alteracao) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    alteracao.run();
+                }
+            });
         } else {
-            return null; // Ou lançar exceção
+            alteracao.run();
         }
     }
 
     // --- MÉTODO AUXILIAR PARA COPIAR DADOS DO DTO PARA O MODEL ---
+    // Os relacionamentos entram como referências (getReferenceById): só a chave estrangeira é usada,
+    // sem SELECT. Um ID inexistente é recusado pela FK no flush e traduzido em traduzirViolacao.
     private void copyDtoToModel(ImoveisDTO dto, ImoveisModel model) {
+        copiarCampos(dto, model);
+
+        // --- Tratamento dos Relacionamentos ---
+        // Se o ID vier null, mantém o relacionamento atual (no update)
+        if (dto.getTipoImovelId() != null) {
+            model.setTipoImovel(tiposImoveisRepository.getReferenceById(dto.getTipoImovelId()));
+        }
+        if (dto.getBairroId() != null) {
+            model.setBairro(bairrosRepository.getReferenceById(dto.getBairroId()));
+        }
+        if (dto.getUsuarioId() != null) {
+            model.setUsuario(usuariosRepository.getReferenceById(dto.getUsuarioId()));
+        }
+    }
+
+    // Converte a violação de integridade na mesma mensagem que a busca por ID gerava. Só no caminho
+    // de erro: consulta qual das referências do DTO não existe, sem depender do texto do banco
+    private RuntimeException traduzirViolacao(DataIntegrityViolationException e, ImoveisDTO dto) {
+        entityManager.clear(); // Descarta a escrita que falhou, para as consultas não tentarem o flush de novo
+        if (dto.getTipoImovelId() != null && !tiposImoveisRepository.existsById(dto.getTipoImovelId())) {
+            return new RuntimeException("Tipo de Imóvel com ID " + dto.getTipoImovelId() + " não encontrado.", e);
+        }
+        if (dto.getBairroId() != null && !bairrosRepository.existsById(dto.getBairroId())) {
+            return new RuntimeException("Bairro com ID " + dto.getBairroId() + " não encontrado.", e);
+        }
+        if (dto.getUsuarioId() != null && !usuariosRepository.existsById(dto.getUsuarioId())) {
+            return new RuntimeException("Usuário com ID " + dto.getUsuarioId() + " não encontrado.", e);
+        }
+        return e;
+    }
+
+    // Campos simples do DTO (sem relacionamentos); também usado pela importação em lote
+    static void copiarCampos(ImoveisDTO dto, ImoveisModel model) {
         model.setTitulo(dto.getTitulo());
         model.setDescricao(dto.getDescricao());
         model.setPreco_venda(dto.getPreco_venda());
@@ -197,58 +626,152 @@ public class ImoveisServices {
         model.setCep(dto.getCep());
         model.setCaracteristicas(dto.getCaracteristicas());
         model.setDestaque(dto.getDestaque());
+    }
 
-        // --- Tratamento dos Relacionamentos ---
-        // Busca e associa o Tipo de Imóvel
-        if (dto.getTipoImovelId() != null) {
-            TiposImoveisModel tipo = tiposImoveisRepository.findById(dto.getTipoImovelId()).orElse(null);
-            if (tipo == null) {
-                throw new RuntimeException("Tipo de Imóvel com ID " + dto.getTipoImovelId() + " não encontrado.");
-            }
-            model.setTipoImovel(tipo);
-        } else {
-             // Se for update e o ID for null, mantém o existente?
-             // Ou define como null? Depende da regra de negócio.
-             // Vamos assumir que, se for null, mantém o existente (no update).
-             // Se for create e for null, o banco pode reclamar se for NOT NULL.
-             // Para simplificar, vamos deixar passar e deixar o banco validar.
+    /**
+     * Altera status, destaque e/ou preços de vários imóveis com UPDATEs em lote, sem carregar as
+     * entidades. Todos os blocos rodam na mesma transação; caches e facetas são atualizados depois do commit.
+     *
+     * @param dto           Os imóveis (IDs ou filtros) e as alterações.
+     * @param usuarioLogado Quem está alterando; corretor só altera os próprios imóveis
+     *                      (os demais IDs da lista são ignorados pelo próprio UPDATE).
+     * @return A quantidade de imóveis alterados.
+     * @throws IllegalArgumentException Se faltar a seleção ou as alterações, ou se o reajuste for inválido.
+     */
+    public int atualizarEmLote(AtualizacaoLoteImoveisDTO dto, UserModel usuarioLogado) {
+        if (dto.getStatus() == null && dto.getDestaque() == null
+                && dto.getPercentualVenda() == null && dto.getPercentualAluguel() == null) {
+            throw new IllegalArgumentException("Nenhuma alteração informada.");
         }
+        BigDecimal fatorVenda = fatorReajuste(dto.getPercentualVenda());
+        BigDecimal fatorAluguel = fatorReajuste(dto.getPercentualAluguel());
+        Integer usuarioId = UserModel.Tipo.ADMIN.equals(usuarioLogado.getTipo()) ? null : usuarioLogado.getId();
 
-        // Busca e associa o Bairro
-        if (dto.getBairroId() != null) {
-            BairrosModel bairro = bairrosRepository.findById(dto.getBairroId()).orElse(null);
-            if (bairro == null) {
-                throw new RuntimeException("Bairro com ID " + dto.getBairroId() + " não encontrado.");
-            }
-            model.setBairro(bairro);
+        List<Integer> ids = selecionarIds(dto, usuarioId);
+        if (ids.isEmpty()) {
+            return 0;
         }
 
-        // Busca e associa o Usuário
-        if (dto.getUsuarioId() != null) {
-            UserModel usuario = usuariosRepository.findById(dto.getUsuarioId()).orElse(null);
-            if (usuario == null) {
-                throw new RuntimeException("Usuário com ID " + dto.getUsuarioId() + " não encontrado.");
+        Instant agora = Instant.now();
+        List<Object[]> valoresFacetas = new ArrayList<>();
+        Integer alterados = new TransactionTemplate(transactionManager).execute(status -> {
+            int total = 0;
+            for (int i = 0; i < ids.size(); i += TAMANHO_BLOCO_LOTE) {
+                List<Integer> bloco = ids.subList(i, Math.min(i + TAMANHO_BLOCO_LOTE, ids.size()));
+                total += atualizarBloco(bloco, dto, fatorVenda, fatorAluguel, usuarioId, agora);
+                // Das facetas só o status pode ter mudado. Lido nesta transação (primária): depois do
+                // commit a leitura iria para uma réplica, que ainda pode devolver o status antigo
+                if (dto.getStatus() != null) {
+                    valoresFacetas.addAll(repositorio.findValoresFacetasByIdIn(bloco));
+                }
             }
-            model.setUsuario(usuario);
+            return total;
+        });
+
+        Cache porId = cacheManager.getCache(CacheConfig.IMOVEIS);
+        if (porId != null) {
+            ids.forEach(porId::evict);
+        }
+        Cache paginas = cacheManager.getCache(CacheConfig.IMOVEIS_PAGINAS);
+        if (paginas != null) {
+            paginas.clear();
+        }
+        if (!valoresFacetas.isEmpty()) {
+            aposCommit(() -> facetas.indexar(valoresFacetas));
+        }
+        return alterados != null ? alterados : 0;
+    }
+
+    // Um UPDATE só com as colunas pedidas (preço sem reajuste não é regravado), sem carregar as entidades.
+    // Corretor (usuarioId preenchido) só altera os próprios imóveis. O @UpdateTimestamp não vale para
+    // UPDATE em lote, por isso atualizadoEm vai explícito
+    private int atualizarBloco(List<Integer> ids, AtualizacaoLoteImoveisDTO dto, BigDecimal fatorVenda,
+            BigDecimal fatorAluguel, Integer usuarioId, Instant agora) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<ImoveisModel> update = cb.createCriteriaUpdate(ImoveisModel.class);
+        Root<ImoveisModel> root = update.from(ImoveisModel.class);
+        if (dto.getStatus() != null) {
+            update.set(root.<ImoveisModel.Status>get("status"), dto.getStatus());
+        }
+        if (dto.getDestaque() != null) {
+            update.set(root.<Boolean>get("destaque"), dto.getDestaque());
+        }
+        if (dto.getPercentualVenda() != null) {
+            Path<BigDecimal> preco = root.get("preco_venda");
+            update.set(preco, cb.round(cb.prod(preco, fatorVenda), 2));
+        }
+        if (dto.getPercentualAluguel() != null) {
+            Path<BigDecimal> preco = root.get("preco_aluguel");
+            update.set(preco, cb.round(cb.prod(preco, fatorAluguel), 2));
+        }
+        update.set(root.<Instant>get("atualizadoEm"), agora);
+
+        Predicate condicao = root.get("id").in(ids);
+        if (usuarioId != null) {
+            condicao = cb.and(condicao, cb.equal(root.get("usuario").get("id"), usuarioId));
+        }
+        update.where(condicao);
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    // IDs informados ou, sem eles, os IDs que atendem aos filtros (só do corretor, quando for o caso)
+    private List<Integer> selecionarIds(AtualizacaoLoteImoveisDTO dto, Integer usuarioId) {
+        if (dto.getIds() != null && !dto.getIds().isEmpty()) {
+            return dto.getIds().stream().filter(id -> id != null).distinct().toList();
         }
+        if (dto.getFiltro() == null || filtroVazio(dto.getFiltro())) {
+            throw new IllegalArgumentException("Informe os IDs ou ao menos um filtro.");
+        }
+        Specification<ImoveisModel> spec = ImoveisSpecifications.comFiltro(dto.getFiltro());
+        if (usuarioId != null) {
+            spec = spec.and(ImoveisSpecifications.doUsuario(usuarioId));
+        }
+        // Seleciona apenas o ID (a Specification não faz fetch quando o resultado não é a entidade)
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Integer> query = cb.createQuery(Integer.class);
+        Root<ImoveisModel> root = query.from(ImoveisModel.class);
+        query.select(root.get("id")).where(spec.toPredicate(root, query, cb));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    private static boolean filtroVazio(ImoveisFiltroDTO f) {
+        return f.getBairroId() == null && f.getTipoImovelId() == null && f.getStatus() == null
+                && f.getFinalidade() == null && f.getPrecoVendaMin() == null && f.getPrecoVendaMax() == null
+                && f.getPrecoAluguelMin() == null && f.getPrecoAluguelMax() == null
+                && f.getDormitoriosMin() == null && f.getBanheirosMin() == null && f.getGaragemMin() == null
+                && f.getAreaMin() == null && f.getAreaMax() == null && f.getDestaque() == null
+                && (f.getQ() == null || f.getQ().isBlank());
+    }
+
+    // Percentual -> fator multiplicador (10 -> 1.10); null = sem reajuste
+    private static BigDecimal fatorReajuste(BigDecimal percentual) {
+        if (percentual == null) {
+            return BigDecimal.ONE;
+        }
+        if (percentual.compareTo(BigDecimal.valueOf(-100)) <= 0) {
+            throw new IllegalArgumentException("O reajuste deve ser maior que -100%.");
+        }
+        return BigDecimal.ONE.add(percentual.divide(BigDecimal.valueOf(100), MathContext.DECIMAL64));
     }
 
-    public List<ImoveisModel> buscarPorUsuarioId(Integer usuarioId) {
-        return repositorio.findByUsuarioId(usuarioId); // Este método deve existir no Repository
+    @Transactional(readOnly = true)
+    public List<ImoveisListDTO> buscarPorUsuarioId(Integer usuarioId) {
+        return preencherCapas(repositorio.findListagemByUsuarioId(usuarioId));
     }
 
     
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.IMOVEIS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.IMOVEIS_PAGINAS, allEntries = true)
+    })
+    @Transactional
     public boolean delete(Integer id) {
-        try {
-            if (find(id) != null) {
-                repositorio.deleteById(id);
-                return true;
-            } else {
-                return false;
-            }
-        } catch (Exception e) {
+        if (!repositorio.existsById(id)) {
             return false;
         }
+        repositorio.deleteById(id);
+        aposCommit(() -> facetas.remover(id));
+        return true;
     }
 }
\ No newline at end of file
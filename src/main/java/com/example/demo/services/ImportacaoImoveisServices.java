@@ -0,0 +1,372 @@
+package com.example.demo.services;
+
+import com.example.demo.config.CacheConfig;
+import com.example.demo.dto.ImoveisDTO;
+import com.example.demo.dto.ResultadoImportacaoDTO;
+import com.example.demo.model.BairrosModel;
+import com.example.demo.model.ImoveisModel;
+import com.example.demo.model.TiposImoveisModel;
+import com.example.demo.model.UserModel;
+import com.example.demo.repository.BairrosRepository;
+import com.example.demo.repository.TiposImoveisRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.util.LeitorCsv;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Importação em lote de imóveis a partir de CSV ou JSON (array ou NDJSON).
+ *
+ * O arquivo é lido em fluxo, um registro por vez. Bairros, tipos e usuários são carregados uma
+ * única vez em memória (em vez de um findById por linha) e as linhas válidas são gravadas em
+ * blocos de TAMANHO_LOTE, cada bloco na sua própria transação com INSERTs em lote JDBC. Um erro
+ * em uma linha não derruba a importação: ela entra na lista de erros com o número da linha.
+ */
+@Service
+public class ImportacaoImoveisServices {
+
+    public static final int TAMANHO_LOTE = 500;
+    private static final int MAX_ERROS_LISTADOS = 1000;
+
+    // No CSV separado por ';' (Excel em português) estas colunas podem vir com vírgula decimal
+    private static final Set<String> COLUNAS_DECIMAIS = Set.of("preco_venda", "preco_aluguel", "area_total",
+            "area_construida");
+
+    // Colunas opcionais com o nome do bairro/tipo, usadas quando bairroId/tipoImovelId não vierem
+    private static final String COLUNA_BAIRRO = "bairro";
+    private static final String COLUNA_TIPO = "tipoImovel";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private BairrosRepository bairrosRepository;
+
+    @Autowired
+    private TiposImoveisRepository tiposImoveisRepository;
+
+    @Autowired
+    private UserRepository usuariosRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ImoveisFacetasServices facetas;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    /**
+     * Importa um CSV com cabeçalho. As colunas têm os nomes dos campos de ImoveisDTO
+     * (titulo, preco_venda, bairroId, ...); no lugar de bairroId/tipoImovelId aceita as colunas
+     * "bairro" e "tipoImovel" com o nome cadastrado.
+     *
+     * @param in            O corpo da requisição.
+     * @param charset       A codificação do arquivo.
+     * @param usuarioLogado Quem está importando (corretor só importa imóveis próprios).
+     * @return O resumo da importação com os erros por linha.
+     * @throws IOException Se houver erro de leitura do arquivo.
+     */
+    public ResultadoImportacaoDTO importarCsv(InputStream in, Charset charset, UserModel usuarioLogado)
+            throws IOException {
+        Importacao importacao = new Importacao(usuarioLogado);
+        try (LeitorCsv leitor = new LeitorCsv(new BufferedReader(new InputStreamReader(in, charset), 64 * 1024))) {
+            List<String> colunas = leitor.lerCabecalho();
+            if (colunas == null) {
+                return importacao.concluir();
+            }
+            boolean virgulaDecimal = leitor.getSeparador() == ';';
+            List<String> valores;
+            while ((valores = leitor.proximo()) != null) {
+                long linha = leitor.getLinha();
+                if (valores.size() != colunas.size()) {
+                    importacao.erro(linha, "A linha tem " + valores.size() + " colunas e o cabeçalho tem "
+                            + colunas.size() + ".");
+                    continue;
+                }
+                Map<String, Object> registro = new LinkedHashMap<>();
+                for (int i = 0; i < colunas.size(); i++) {
+                    String valor = valores.get(i).trim();
+                    if (valor.isEmpty()) {
+                        continue; // Campo vazio = não informado
+                    }
+                    if (virgulaDecimal && COLUNAS_DECIMAIS.contains(colunas.get(i))) {
+                        valor = valor.replace(".", "").replace(',', '.'); // 1.234,56 -> 1234.56
+                    }
+                    registro.put(colunas.get(i), valor);
+                }
+                importacao.adicionar(linha, registro);
+            }
+        } finally {
+            importacao.encerrar();
+        }
+        return importacao.concluir();
+    }
+
+    /**
+     * Importa um array JSON de objetos ou um arquivo NDJSON (um objeto por linha), com os mesmos
+     * campos aceitos no CSV.
+     *
+     * @param in            O corpo da requisição.
+     * @param usuarioLogado Quem está importando (corretor só importa imóveis próprios).
+     * @return O resumo da importação; o número da linha é a posição do objeto (1, 2, ...).
+     * @throws IOException Se o JSON estiver malformado (os objetos anteriores já foram gravados).
+     */
+    public ResultadoImportacaoDTO importarJson(InputStream in, UserModel usuarioLogado) throws IOException {
+        Importacao importacao = new Importacao(usuarioLogado);
+        try (MappingIterator<Map<String, Object>> objetos = objectMapper
+                .readerFor(new TypeReference<Map<String, Object>>() {})
+                .readValues(in)) {
+            long posicao = 0;
+            while (objetos.hasNextValue()) {
+                importacao.adicionar(++posicao, objetos.nextValue());
+            }
+        } finally {
+            importacao.encerrar();
+        }
+        return importacao.concluir();
+    }
+
+    // Linha já validada, pronta para gravar
+    private record LinhaValida(long linha, ImoveisDTO dto) {
+    }
+
+    /**
+     * Estado de uma importação: referências carregadas, bloco pendente e resultado.
+     */
+    private class Importacao {
+
+        private final UserModel usuarioLogado;
+        private final boolean admin;
+        private final Set<Integer> bairros;
+        private final Set<Integer> tipos;
+        private final Set<Integer> usuarios;
+        private final Map<String, Integer> bairrosPorNome;
+        private final Map<String, Integer> tiposPorNome;
+        private final List<LinhaValida> pendentes = new ArrayList<>(TAMANHO_LOTE);
+        private final ResultadoImportacaoDTO resultado = new ResultadoImportacaoDTO();
+        private final long inicio = System.currentTimeMillis();
+
+        Importacao(UserModel usuarioLogado) {
+            this.usuarioLogado = usuarioLogado;
+            this.admin = UserModel.Tipo.ADMIN.equals(usuarioLogado.getTipo());
+            // Bairros e tipos vêm do cache de consultas do Hibernate; dos usuários só os IDs
+            List<BairrosModel> listaBairros = bairrosRepository.findAll();
+            List<TiposImoveisModel> listaTipos = tiposImoveisRepository.findAll();
+            this.bairros = listaBairros.stream().map(BairrosModel::getId).collect(Collectors.toSet());
+            this.tipos = listaTipos.stream().map(TiposImoveisModel::getId).collect(Collectors.toSet());
+            this.usuarios = new HashSet<>(usuariosRepository.findAllIds());
+            this.bairrosPorNome = porNome(listaBairros, BairrosModel::getNome, BairrosModel::getId);
+            this.tiposPorNome = porNome(listaTipos, TiposImoveisModel::getNome, TiposImoveisModel::getId);
+        }
+
+        void adicionar(long linha, Map<String, Object> registro) {
+            resultado.setTotalLinhas(resultado.getTotalLinhas() + 1);
+            try {
+                Object nomeBairro = registro.remove(COLUNA_BAIRRO);
+                Object nomeTipo = registro.remove(COLUNA_TIPO);
+                ImoveisDTO dto = objectMapper.convertValue(registro, ImoveisDTO.class);
+                String problema = resolverReferencias(dto, nomeBairro, nomeTipo);
+                if (problema == null) {
+                    problema = validar(dto);
+                }
+                if (problema != null) {
+                    erro(linha, problema);
+                    return;
+                }
+                pendentes.add(new LinhaValida(linha, dto));
+                if (pendentes.size() >= TAMANHO_LOTE) {
+                    gravarPendentes();
+                }
+            } catch (IllegalArgumentException e) {
+                // convertValue: tipo inválido (ex: texto em preco_venda ou finalidade desconhecida)
+                erro(linha, "Valor inválido: " + mensagemCurta(e));
+            }
+        }
+
+        // Grava o que sobrou e invalida o cache das páginas (também se a leitura parou no meio)
+        void encerrar() {
+            gravarPendentes();
+            if (resultado.getImportados() > 0) {
+                Cache paginas = cacheManager.getCache(CacheConfig.IMOVEIS_PAGINAS);
+                if (paginas != null) {
+                    paginas.clear();
+                }
+            }
+        }
+
+        ResultadoImportacaoDTO concluir() {
+            resultado.setDuracaoMs(System.currentTimeMillis() - inicio);
+            System.out.println("Importação de imóveis: " + resultado.getImportados() + " de "
+                    + resultado.getTotalLinhas() + " linhas em " + resultado.getDuracaoMs() + " ms");
+            return resultado;
+        }
+
+        void erro(long linha, String mensagem) {
+            resultado.setComErro(resultado.getComErro() + 1);
+            if (resultado.getErros().size() < MAX_ERROS_LISTADOS) {
+                resultado.getErros().add(new ResultadoImportacaoDTO.ErroLinha(linha, mensagem));
+            }
+        }
+
+        // Confere os IDs no que foi carregado em memória; devolve a mensagem de erro ou null
+        private String resolverReferencias(ImoveisDTO dto, Object nomeBairro, Object nomeTipo) {
+            if (dto.getBairroId() == null && nomeBairro != null) {
+                dto.setBairroId(bairrosPorNome.get(normalizar(nomeBairro)));
+                if (dto.getBairroId() == null) {
+                    return "Bairro \"" + nomeBairro + "\" não encontrado.";
+                }
+                if (dto.getBairroId() < 0) {
+                    return "Há mais de um bairro chamado \"" + nomeBairro + "\"; informe o bairroId.";
+                }
+            } else if (dto.getBairroId() != null && !bairros.contains(dto.getBairroId())) {
+                return "Bairro com ID " + dto.getBairroId() + " não encontrado.";
+            }
+
+            if (dto.getTipoImovelId() == null && nomeTipo != null) {
+                dto.setTipoImovelId(tiposPorNome.get(normalizar(nomeTipo)));
+                if (dto.getTipoImovelId() == null) {
+                    return "Tipo de Imóvel \"" + nomeTipo + "\" não encontrado.";
+                }
+                if (dto.getTipoImovelId() < 0) {
+                    return "Há mais de um tipo chamado \"" + nomeTipo + "\"; informe o tipoImovelId.";
+                }
+            } else if (dto.getTipoImovelId() != null && !tipos.contains(dto.getTipoImovelId())) {
+                return "Tipo de Imóvel com ID " + dto.getTipoImovelId() + " não encontrado.";
+            }
+
+            // Mesma regra do POST /imoveis: corretor só cadastra imóveis próprios
+            if (dto.getUsuarioId() == null) {
+                dto.setUsuarioId(usuarioLogado.getId());
+            } else if (!admin && !dto.getUsuarioId().equals(usuarioLogado.getId())) {
+                return "Sem permissão para cadastrar imóvel de outro usuário.";
+            } else if (!usuarios.contains(dto.getUsuarioId())) {
+                return "Usuário com ID " + dto.getUsuarioId() + " não encontrado.";
+            }
+            return null;
+        }
+
+        // Valida as anotações do ImoveisModel antes de gravar, para o erro sair por linha
+        private String validar(ImoveisDTO dto) {
+            ImoveisModel model = new ImoveisModel();
+            ImoveisServices.copiarCampos(dto, model);
+            Set<ConstraintViolation<ImoveisModel>> violacoes = validator.validate(model);
+            if (violacoes.isEmpty()) {
+                return null;
+            }
+            return violacoes.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+
+        private void gravarPendentes() {
+            if (pendentes.isEmpty()) {
+                return;
+            }
+            try {
+                List<ImoveisModel> salvos = gravar(pendentes);
+                salvos.forEach(facetas::indexar);
+                resultado.setImportados(resultado.getImportados() + salvos.size());
+            } catch (RuntimeException e) {
+                // O banco recusou alguma linha do bloco (ex: valor maior que a coluna): grava uma por
+                // uma para salvar as demais e identificar qual falhou
+                for (LinhaValida linha : pendentes) {
+                    try {
+                        gravar(List.of(linha)).forEach(facetas::indexar);
+                        resultado.setImportados(resultado.getImportados() + 1);
+                    } catch (RuntimeException erroLinha) {
+                        erro(linha.linha(), "Erro ao gravar: " + mensagemCurta(erroLinha));
+                    }
+                }
+            }
+            pendentes.clear();
+        }
+
+        // Um bloco por transação; os relacionamentos entram como referências (sem SELECT)
+        private List<ImoveisModel> gravar(List<LinhaValida> linhas) {
+            TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+            return transacao.execute(status -> {
+                List<ImoveisModel> modelos = new ArrayList<>(linhas.size());
+                for (LinhaValida linha : linhas) {
+                    ImoveisDTO dto = linha.dto();
+                    ImoveisModel model = new ImoveisModel();
+                    ImoveisServices.copiarCampos(dto, model);
+                    if (dto.getTipoImovelId() != null) {
+                        model.setTipoImovel(entityManager.getReference(TiposImoveisModel.class, dto.getTipoImovelId()));
+                    }
+                    if (dto.getBairroId() != null) {
+                        model.setBairro(entityManager.getReference(BairrosModel.class, dto.getBairroId()));
+                    }
+                    model.setUsuario(entityManager.getReference(UserModel.class, dto.getUsuarioId()));
+                    entityManager.persist(model);
+                    modelos.add(model);
+                }
+                entityManager.flush();
+                entityManager.clear(); // Libera o bloco da memória; o commit não tem mais nada a fazer
+                return modelos;
+            });
+        }
+    }
+
+    // Nome normalizado -> ID; nomes repetidos ficam com -1 (ambíguo)
+    private static <T> Map<String, Integer> porNome(List<T> lista, Function<T, String> nome, Function<T, Integer> id) {
+        Map<String, Integer> mapa = new HashMap<>();
+        for (T item : lista) {
+            if (nome.apply(item) != null) {
+                mapa.merge(normalizar(nome.apply(item)), id.apply(item), (atual, novo) -> -1);
+            }
+        }
+        return mapa;
+    }
+
+    private static String normalizar(Object nome) {
+        return nome.toString().trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String mensagemCurta(Throwable e) {
+        Throwable causa = e;
+        while (causa.getCause() != null && causa.getCause() != causa) {
+            causa = causa.getCause();
+        }
+        String mensagem = causa.getMessage() != null ? causa.getMessage() : causa.getClass().getSimpleName();
+        int quebra = mensagem.indexOf('\n');
+        return quebra > 0 ? mensagem.substring(0, quebra) : mensagem;
+    }
+}
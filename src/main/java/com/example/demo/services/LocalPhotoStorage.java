@@ -0,0 +1,149 @@
+package com.example.demo.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+
+/**
+ * Armazenamento das fotos no disco local, no diretório app.upload.dir (comportamento original).
+ * Exige que todos os nós da aplicação compartilhem o mesmo diretório.
+ */
+@Service
+@ConditionalOnProperty(name = "app.storage.tipo", havingValue = "local", matchIfMissing = true)
+public class LocalPhotoStorage implements PhotoStorage {
+
+    private final Path raiz;
+
+    public LocalPhotoStorage(@Value("${app.upload.dir:./uploads}") String uploadDir) {
+        this.raiz = Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public void salvar(String chave, Path origem) throws IOException {
+        Path destino = resolver(chave);
+        Files.createDirectories(destino.getParent());
+        try {
+            // Mesmo disco: move sem copiar (e o arquivo aparece completo de uma vez)
+            Files.move(origem, destino, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.copy(origem, destino, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public long gravar(String chave, InputStream conteudo) throws IOException {
+        Path destino = resolver(chave);
+        Files.createDirectories(destino.getParent());
+        try (OutputStream out = Files.newOutputStream(destino)) {
+            return conteudo.transferTo(out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(destino); // Não deixa arquivo pela metade
+            throw e;
+        }
+    }
+
+    @Override
+    public void mover(String origem, String destino) throws IOException {
+        Path arquivo = resolver(origem);
+        Path alvo = resolver(destino);
+        Files.createDirectories(alvo.getParent());
+        try {
+            Files.move(arquivo, alvo, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(arquivo, alvo, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public InputStream abrir(String chave) throws IOException {
+        return Files.newInputStream(resolver(chave));
+    }
+
+    @Override
+    public InputStream abrir(String chave, long inicio, long fim) throws IOException {
+        FileChannel canal = FileChannel.open(resolver(chave), StandardOpenOption.READ);
+        canal.position(inicio);
+        return new FilterInputStream(Channels.newInputStream(canal)) {
+            private long restante = fim - inicio + 1;
+
+            @Override
+            public int read() throws IOException {
+                if (restante <= 0) {
+                    return -1;
+                }
+                int b = super.read();
+                if (b >= 0) {
+                    restante--;
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (restante <= 0) {
+                    return -1;
+                }
+                int lidos = super.read(b, off, (int) Math.min(len, restante));
+                if (lidos > 0) {
+                    restante -= lidos;
+                }
+                return lidos;
+            }
+        };
+    }
+
+    @Override
+    public Optional<Metadados> metadados(String chave) throws IOException {
+        Path arquivo = resolver(chave);
+        if (!Files.isRegularFile(arquivo)) {
+            return Optional.empty();
+        }
+        BasicFileAttributes atributos = Files.readAttributes(arquivo, BasicFileAttributes.class);
+        // Sem ETag: o EntregaFotosServices calcula pelo conteúdo
+        return Optional.of(new Metadados(atributos.size(), atributos.lastModifiedTime().toInstant(), null));
+    }
+
+    @Override
+    public void excluir(String chave) throws IOException {
+        Path arquivo = resolver(chave);
+        if (!Files.deleteIfExists(arquivo)) {
+            System.out.println("Aviso: Arquivo não encontrado para exclusão: " + arquivo);
+        }
+    }
+
+    @Override
+    public Optional<Path> localPath(String chave) {
+        try {
+            return Optional.of(resolver(chave));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    // Resolve a chave dentro do diretório raiz (recusa caminhos como "../../etc/passwd")
+    private Path resolver(String chave) throws IOException {
+        if (chave == null || chave.isBlank()) {
+            throw new IOException("Caminho de arquivo vazio");
+        }
+        Path arquivo = raiz.resolve(chave).normalize();
+        if (!arquivo.startsWith(raiz)) {
+            throw new IOException("Caminho fora do diretório de uploads: " + chave);
+        }
+        return arquivo;
+    }
+}
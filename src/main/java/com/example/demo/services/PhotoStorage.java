@@ -0,0 +1,89 @@
+package com.example.demo.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Onde os arquivos das fotos ficam guardados (original e versões redimensionadas).
+ *
+ * As chaves são os caminhos relativos gravados em FotosImoveisModel (ex: blobs/ab/cd/<hash>.jpg).
+ * Implementações: {@link LocalPhotoStorage} (diretório app.upload.dir, padrão) e
+ * {@link S3PhotoStorage} (bucket S3 ou compatível, como MinIO), escolhidas por app.storage.tipo.
+ * Nenhum método carrega o arquivo inteiro em memória.
+ */
+public interface PhotoStorage {
+
+    /**
+     * Tamanho, data de modificação e ETag (quando o backend fornece) de um arquivo.
+     */
+    record Metadados(long tamanho, Instant modificadoEm, String etag) {}
+
+    /**
+     * Grava o conteúdo de um arquivo local na chave informada.
+     * O arquivo de origem pode ser movido (armazenamento local); quem chama apaga o que sobrar.
+     *
+     * @param chave  O caminho relativo de destino.
+     * @param origem O arquivo local com o conteúdo.
+     * @throws IOException Se houver erro ao gravar.
+     */
+    void salvar(String chave, Path origem) throws IOException;
+
+    /**
+     * Grava o conteúdo de um stream na chave informada, sem arquivo intermediário.
+     * Se a leitura falhar no meio (ex: limite de tamanho do upload), nada fica gravado na chave.
+     *
+     * @param chave    O caminho relativo de destino.
+     * @param conteudo O stream com o conteúdo (lido até o fim, não é fechado aqui).
+     * @return A quantidade de bytes gravados.
+     * @throws IOException Se houver erro ao ler o stream ou ao gravar.
+     */
+    long gravar(String chave, InputStream conteudo) throws IOException;
+
+    /**
+     * Muda um arquivo já gravado de chave, sem passar o conteúdo pela aplicação
+     * (renomeação no disco local, cópia dentro do bucket no S3). Substitui o destino se existir.
+     *
+     * @param origem  O caminho relativo atual.
+     * @param destino O novo caminho relativo.
+     * @throws IOException Se a origem não existir ou houver erro ao mover.
+     */
+    void mover(String origem, String destino) throws IOException;
+
+    /**
+     * Abre o arquivo para leitura (em fluxo). Quem chama deve fechar o stream.
+     *
+     * @throws IOException Se o arquivo não existir ou houver erro de leitura.
+     */
+    InputStream abrir(String chave) throws IOException;
+
+    /**
+     * Abre apenas um intervalo do arquivo (usado para requisições Range).
+     *
+     * @param inicio Primeiro byte (inclusivo).
+     * @param fim    Último byte (inclusivo).
+     */
+    InputStream abrir(String chave, long inicio, long fim) throws IOException;
+
+    /**
+     * @return Os metadados do arquivo, ou vazio se ele não existir.
+     */
+    Optional<Metadados> metadados(String chave) throws IOException;
+
+    default boolean existe(String chave) throws IOException {
+        return metadados(chave).isPresent();
+    }
+
+    /**
+     * Apaga o arquivo; não faz nada se ele não existir.
+     */
+    void excluir(String chave) throws IOException;
+
+    /**
+     * Caminho no disco local, quando o backend é o sistema de arquivos. Permite o envio via
+     * sendfile e o processamento de imagem sem cópia; vazio para backends remotos.
+     */
+    Optional<Path> localPath(String chave);
+}
@@ -0,0 +1,316 @@
+package com.example.demo.services;
+
+import com.example.demo.model.FotosImoveisModel;
+import com.example.demo.model.ProcessamentoFotoModel;
+import com.example.demo.repository.FotosImoveisRepository;
+import com.example.demo.repository.ProcessamentoFotoRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Fila de processamento das fotos em segundo plano (geração das versões redimensionadas).
+ *
+ * O upload apenas grava o original e cria um job PENDENTE no banco; o job é executado
+ * por um pool próprio com fila limitada. Se a fila estiver cheia o job continua PENDENTE
+ * e é reenviado pela varredura agendada, então o upload nunca espera pelo processamento.
+ *
+ * Com várias instâncias, cada job é reservado por um UPDATE condicional (só um nó o executa).
+ * Um job reservado há mais que o prazo (o nó parou no meio) volta para PENDENTE na varredura.
+ */
+@Service
+public class ProcessamentoFotosServices {
+
+    private static final int MAX_TENTATIVAS = 3;
+
+    @Autowired
+    private ProcessamentoFotoRepository repositorio;
+
+    @Autowired
+    private FotosImoveisRepository fotosRepository;
+
+    @Autowired
+    private ImagensServices imagensServices;
+
+    @Autowired
+    private BlobsFotosServices blobsServices;
+
+    @Autowired
+    private PhotoStorage storage;
+
+    @Autowired
+    private ImoveisServices imoveisServices; // A capa dos cards usa a versão "card"
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.fotos.processamento.threads:2}")
+    private int threads;
+
+    @Value("${app.fotos.processamento.fila:200}")
+    private int capacidadeFila;
+
+    // Tempo sem concluir depois do qual um job PROCESSANDO é considerado abandonado
+    @Value("${app.fotos.processamento.prazo-ms:600000}")
+    private long prazoMs;
+
+    private ThreadPoolExecutor executor;
+
+    // O worker lê o job e a foto logo depois do commit do upload: fora de uma transação de escrita a
+    // leitura iria para uma réplica de leitura, que pode ainda não ter as linhas (ver RoteamentoDataSource)
+    private TransactionTemplate primaria;
+
+    // IDs dos jobs já entregues ao executor (evita enviar o mesmo job duas vezes)
+    private final Set<Integer> enviados = ConcurrentHashMap.newKeySet();
+
+    private Counter concluidos;
+    private Counter erros;
+    private Counter rejeitados;
+    private Timer duracao;
+
+    @PostConstruct
+    public void iniciar() {
+        primaria = new TransactionTemplate(transactionManager);
+
+        // Processamento de imagem usa bastante CPU e memória: poucas threads e fila limitada
+        AtomicInteger contador = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadeFila),
+                r -> {
+                    Thread t = new Thread(r, "fotos-" + contador.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        concluidos = Counter.builder("fotos.processamento.concluidos")
+                .description("Fotos processadas com sucesso").register(meterRegistry);
+        erros = Counter.builder("fotos.processamento.erros")
+                .description("Falhas no processamento de fotos").register(meterRegistry);
+        rejeitados = Counter.builder("fotos.processamento.rejeitados")
+                .description("Jobs recusados por fila cheia (ficam pendentes)").register(meterRegistry);
+        duracao = Timer.builder("fotos.processamento.duracao")
+                .description("Tempo de processamento de uma foto").register(meterRegistry);
+        Gauge.builder("fotos.processamento.fila", executor, e -> e.getQueue().size())
+                .description("Jobs aguardando na fila em memória").register(meterRegistry);
+        Gauge.builder("fotos.processamento.ativos", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Jobs em execução").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void encerrar() throws InterruptedException {
+        // Os jobs ainda na fila continuam PENDENTES no banco e são retomados no próximo start
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Cria o job de processamento de uma foto recém-gravada e o envia para a fila.
+     *
+     * @param foto A foto já salva no banco (com o caminho do original).
+     * @return O job criado.
+     */
+    public ProcessamentoFotoModel enfileirar(FotosImoveisModel foto) {
+        ProcessamentoFotoModel job = repositorio.save(new ProcessamentoFotoModel(foto.getId()));
+        // Com IDs em tabela o INSERT só sai no flush: dentro de uma transação, o worker (outra
+        // conexão) só enxerga a foto e o job depois do commit
+        Integer jobId = job.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submeter(jobId);
+                }
+            });
+        } else {
+            submeter(jobId);
+        }
+        return job;
+    }
+
+    // Status do processamento de uma foto (null se não houver job)
+    public ProcessamentoFotoModel findByFotoId(Integer fotoId) {
+        return repositorio.findByFotoId(fotoId).orElse(null);
+    }
+
+    // Remove o job de uma foto excluída
+    public void removerPorFotoId(Integer fotoId) {
+        repositorio.deleteByFotoId(fotoId);
+    }
+
+    // --- RETOMADA E VARREDURA ---
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void retomarPendentes() {
+        reenviarPendentes();
+    }
+
+    @Scheduled(fixedDelayString = "${app.fotos.processamento.varredura-ms:30000}",
+            initialDelayString = "${app.fotos.processamento.varredura-ms:30000}")
+    public void reenviarPendentes() {
+        // Só os jobs abandonados: os que outro nó está processando agora continuam com ele
+        int retomados = repositorio.liberarExpirados(Instant.now().minusMillis(prazoMs),
+                ProcessamentoFotoModel.Status.PROCESSANDO, ProcessamentoFotoModel.Status.PENDENTE);
+        if (retomados > 0) {
+            System.out.println("Retomando " + retomados + " job(s) de processamento de fotos interrompidos.");
+        }
+        for (ProcessamentoFotoModel job : repositorio.findByStatus(ProcessamentoFotoModel.Status.PENDENTE)) {
+            if (!submeter(job.getId())) {
+                break; // Fila cheia: tenta o restante na próxima varredura
+            }
+        }
+    }
+
+    // Envia o job ao executor; retorna false se a fila estiver cheia
+    private boolean submeter(Integer jobId) {
+        if (!enviados.add(jobId)) {
+            return true; // Já está na fila ou em execução
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    duracao.record(() -> processar(jobId));
+                } finally {
+                    enviados.remove(jobId);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            enviados.remove(jobId);
+            rejeitados.increment();
+            return false;
+        }
+    }
+
+    // --- EXECUÇÃO DO JOB (thread do pool) ---
+
+    private void processar(Integer jobId) {
+        // Reserva atômica: se outro nó (ou outra varredura) já pegou o job, ou ele foi removido, não faz nada
+        int reservados = repositorio.reservar(jobId, Instant.now(),
+                ProcessamentoFotoModel.Status.PENDENTE, ProcessamentoFotoModel.Status.PROCESSANDO);
+        if (reservados == 0) {
+            return;
+        }
+        ProcessamentoFotoModel job = primaria.execute(status -> repositorio.findById(jobId).orElse(null));
+        if (job == null) {
+            return; // Foto (e job) excluída logo depois da reserva
+        }
+
+        try {
+            Integer fotoId = job.getFotoId();
+            FotosImoveisModel foto = primaria.execute(status -> fotosRepository.findById(fotoId).orElse(null));
+            if (foto == null) {
+                repositorio.delete(job); // Foto excluída antes do processamento
+                return;
+            }
+
+            Map<ImagensServices.Tamanho, String> derivadas = gerarDerivadas(foto.getCaminho());
+
+            // UPDATE pontual: se a foto foi excluída durante o processamento, nada é regravado
+            int atualizadas = fotosRepository.updateDerivadas(foto.getId(),
+                    derivadas.get(ImagensServices.Tamanho.THUMB),
+                    derivadas.get(ImagensServices.Tamanho.CARD),
+                    derivadas.get(ImagensServices.Tamanho.FULL));
+            if (atualizadas == 0) {
+                // Derivadas de um blob ainda usado por outras fotos são compartilhadas: só apaga se ele sumiu
+                if (foto.getHash() == null || !blobsServices.existe(foto.getHash())) {
+                    for (String caminho : derivadas.values()) {
+                        storage.excluir(caminho);
+                    }
+                }
+                repositorio.delete(job);
+                return;
+            }
+
+            // O card da listagem em cache ainda aponta para o original
+            if (Boolean.TRUE.equals(foto.getCapa()) && foto.getImovel() != null) {
+                imoveisServices.fotosAlteradas(foto.getImovel().getId());
+            }
+
+            job.setStatus(ProcessamentoFotoModel.Status.CONCLUIDO);
+            job.setProcessandoDesde(null);
+            job.setErro(null);
+            repositorio.save(job);
+            concluidos.increment();
+        } catch (Exception e) {
+            System.err.println("Erro ao processar foto " + job.getFotoId() + ": " + e.getMessage());
+            erros.increment();
+            // Tenta novamente na próxima varredura até o limite de tentativas
+            job.setStatus(job.getTentativas() < MAX_TENTATIVAS
+                    ? ProcessamentoFotoModel.Status.PENDENTE
+                    : ProcessamentoFotoModel.Status.ERRO);
+            job.setProcessandoDesde(null);
+            String mensagem = String.valueOf(e.getMessage());
+            job.setErro(mensagem.length() > 1000 ? mensagem.substring(0, 1000) : mensagem);
+            repositorio.save(job);
+        }
+    }
+
+    // Gera as derivadas direto no disco (armazenamento local) ou em um diretório temporário,
+    // enviando o resultado para o PhotoStorage (armazenamento remoto)
+    private Map<ImagensServices.Tamanho, String> gerarDerivadas(String caminho) throws IOException {
+        Path caminhoRelativo = Paths.get(caminho);
+        String subDir = caminhoRelativo.getParent() != null ? caminhoRelativo.getParent().toString() : "";
+
+        Optional<Path> local = storage.localPath(caminho);
+        if (local.isPresent()) {
+            return imagensServices.gerarDerivadas(local.get(), subDir);
+        }
+
+        Path dirTemp = Files.createTempDirectory("fotos-");
+        try {
+            Path original = dirTemp.resolve(caminhoRelativo.getFileName().toString());
+            try (InputStream in = storage.abrir(caminho)) {
+                Files.copy(in, original);
+            }
+            Map<ImagensServices.Tamanho, String> derivadas = imagensServices.gerarDerivadas(original, subDir);
+            for (String derivada : derivadas.values()) {
+                storage.salvar(derivada, dirTemp.resolve(Paths.get(derivada).getFileName()));
+            }
+            return derivadas;
+        } finally {
+            try (Stream<Path> arquivos = Files.list(dirTemp)) {
+                for (Path arquivo : arquivos.toList()) {
+                    Files.deleteIfExists(arquivo);
+                }
+            }
+            Files.deleteIfExists(dirTemp);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.demo.services;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Armazenamento das fotos em um bucket S3 ou compatível (MinIO, Ceph, R2...).
+ * Permite rodar vários nós sem diretório compartilhado. Upload e download são feitos em fluxo
+ * (partes de 5 MB no multipart upload e o stream do GetObject), sem carregar o arquivo inteiro na memória.
+ *
+ * Exemplo com MinIO local:
+ *   app.storage.tipo=s3
+ *   app.storage.s3.bucket=fotos
+ *   app.storage.s3.endpoint=http://localhost:9000
+ *   app.storage.s3.access-key=minioadmin
+ *   app.storage.s3.secret-key=minioadmin
+ */
+@Service
+@ConditionalOnProperty(name = "app.storage.tipo", havingValue = "s3")
+public class S3PhotoStorage implements PhotoStorage {
+
+    // Tamanho das partes do multipart upload (o S3 exige no mínimo 5 MB, exceto na última)
+    private static final int TAMANHO_PARTE = 5 * 1024 * 1024;
+
+    private final S3Client s3;
+    private final String bucket;
+
+    public S3PhotoStorage(
+            @Value("${app.storage.s3.bucket}") String bucket,
+            @Value("${app.storage.s3.regiao:us-east-1}") String regiao,
+            @Value("${app.storage.s3.endpoint:}") String endpoint,
+            @Value("${app.storage.s3.access-key:}") String accessKey,
+            @Value("${app.storage.s3.secret-key:}") String secretKey) {
+        this.bucket = bucket;
+
+        S3ClientBuilder builder = S3Client.builder().region(Region.of(regiao));
+        if (!endpoint.isBlank()) {
+            // MinIO e similares: endpoint próprio e endereçamento por caminho (http://host/bucket/chave)
+            builder.endpointOverride(URI.create(endpoint)).forcePathStyle(true);
+        }
+        if (!accessKey.isBlank()) {
+            builder.credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)));
+        } else {
+            builder.credentialsProvider(DefaultCredentialsProvider.create()); // Variáveis de ambiente, perfil, IAM role
+        }
+        this.s3 = builder.build();
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        s3.close();
+    }
+
+    @Override
+    public void salvar(String chave, Path origem) throws IOException {
+        try {
+            s3.putObject(PutObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(normalizar(chave))
+                    .contentType(contentType(origem.getFileName().toString()))
+                    .build(), RequestBody.fromFile(origem));
+        } catch (SdkException e) {
+            throw new IOException("Erro ao gravar " + chave + " no S3: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Sem o tamanho de antemão, o conteúdo vai em partes de {@link #TAMANHO_PARTE} (multipart upload);
+     * só uma parte fica em memória por vez. Arquivos menores que uma parte vão em um único PutObject.
+     * Se a leitura falhar, o multipart upload é abortado e a chave não é criada.
+     */
+    @Override
+    public long gravar(String chave, InputStream conteudo) throws IOException {
+        String chaveS3 = normalizar(chave);
+        String contentType = contentType(chave);
+        byte[] parte = new byte[TAMANHO_PARTE];
+        int lidos = conteudo.readNBytes(parte, 0, parte.length);
+        if (lidos < parte.length) {
+            try {
+                s3.putObject(PutObjectRequest.builder().bucket(bucket).key(chaveS3).contentType(contentType).build(),
+                        RequestBody.fromInputStream(new ByteArrayInputStream(parte, 0, lidos), lidos));
+                return lidos;
+            } catch (SdkException e) {
+                throw new IOException("Erro ao gravar " + chave + " no S3: " + e.getMessage(), e);
+            }
+        }
+
+        String uploadId;
+        try {
+            uploadId = s3.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                    .bucket(bucket).key(chaveS3).contentType(contentType).build()).uploadId();
+        } catch (SdkException e) {
+            throw new IOException("Erro ao gravar " + chave + " no S3: " + e.getMessage(), e);
+        }
+        try {
+            List<CompletedPart> partes = new ArrayList<>();
+            long total = 0;
+            while (lidos > 0) {
+                int numero = partes.size() + 1;
+                UploadPartResponse resposta = s3.uploadPart(UploadPartRequest.builder()
+                        .bucket(bucket).key(chaveS3).uploadId(uploadId).partNumber(numero).build(),
+                        RequestBody.fromInputStream(new ByteArrayInputStream(parte, 0, lidos), lidos));
+                partes.add(CompletedPart.builder().partNumber(numero).eTag(resposta.eTag()).build());
+                total += lidos;
+                lidos = conteudo.readNBytes(parte, 0, parte.length);
+            }
+            s3.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket).key(chaveS3).uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(partes).build())
+                    .build());
+            return total;
+        } catch (IOException | RuntimeException e) {
+            try {
+                s3.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                        .bucket(bucket).key(chaveS3).uploadId(uploadId).build());
+            } catch (SdkException falhaAbortar) {
+                e.addSuppressed(falhaAbortar); // As partes ficam até a regra de ciclo de vida do bucket limpar
+            }
+            if (e instanceof SdkException sdk) {
+                throw new IOException("Erro ao gravar " + chave + " no S3: " + sdk.getMessage(), sdk);
+            }
+            throw e;
+        }
+    }
+
+    // Cópia feita pelo próprio S3 (o conteúdo não passa pela aplicação), seguida da exclusão da origem
+    @Override
+    public void mover(String origem, String destino) throws IOException {
+        try {
+            s3.copyObject(CopyObjectRequest.builder()
+                    .sourceBucket(bucket).sourceKey(normalizar(origem))
+                    .destinationBucket(bucket).destinationKey(normalizar(destino))
+                    .build());
+            s3.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(normalizar(origem)).build());
+        } catch (SdkException e) {
+            throw new IOException("Erro ao mover " + origem + " para " + destino + " no S3: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public InputStream abrir(String chave) throws IOException {
+        return abrir(GetObjectRequest.builder().bucket(bucket).key(normalizar(chave)).build());
+    }
+
+    @Override
+    public InputStream abrir(String chave, long inicio, long fim) throws IOException {
+        return abrir(GetObjectRequest.builder().bucket(bucket).key(normalizar(chave))
+                .range("bytes=" + inicio + "-" + fim).build());
+    }
+
+    private InputStream abrir(GetObjectRequest request) throws IOException {
+        try {
+            return s3.getObject(request);
+        } catch (SdkException e) {
+            throw new IOException("Erro ao ler " + request.key() + " do S3: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Optional<Metadados> metadados(String chave) throws IOException {
+        try {
+            HeadObjectResponse head = s3.headObject(HeadObjectRequest.builder()
+                    .bucket(bucket).key(normalizar(chave)).build());
+            return Optional.of(new Metadados(head.contentLength(), head.lastModified(), head.eTag()));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw new IOException("Erro ao consultar " + chave + " no S3: " + e.getMessage(), e);
+        } catch (SdkException e) {
+            throw new IOException("Erro ao consultar " + chave + " no S3: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void excluir(String chave) throws IOException {
+        try {
+            s3.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(normalizar(chave)).build());
+        } catch (SdkException e) {
+            throw new IOException("Erro ao excluir " + chave + " do S3: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Optional<Path> localPath(String chave) {
+        return Optional.empty();
+    }
+
+    private static String contentType(String nome) {
+        return MediaTypeFactory.getMediaType(nome).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+    }
+
+    // Chaves do S3 usam "/" (os caminhos gravados no banco podem ter o separador do Windows)
+    private static String normalizar(String chave) {
+        String normalizada = chave.replace('\\', '/');
+        return normalizada.startsWith("/") ? normalizada.substring(1) : normalizada;
+    }
+}
@@ -1,10 +1,14 @@
 package com.example.demo.services;
 
+import com.example.demo.config.CacheConfig;
 import com.example.demo.dto.TiposImoveisDTO;
+import com.example.demo.dto.VersaoColecaoDTO;
 import com.example.demo.model.TiposImoveisModel;
 import com.example.demo.repository.TiposImoveisRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -18,24 +22,35 @@ public class TiposImoveisServices {
     @Autowired
     private TiposImoveisRepository repositorio;
 
+    @Transactional(readOnly = true)
     public List<TiposImoveisModel> getAll() {
         return repositorio.findAll();
     }
 
+    @Transactional(readOnly = true)
     public Page<TiposImoveisModel> getAll(Pageable pageable) {
         Page<TiposImoveisModel> list = repositorio.findAll(pageable);
         return list;
     }
 
+    // Versão da coleção para GET condicional (ETag / Last-Modified)
+    @Transactional(readOnly = true)
+    public VersaoColecaoDTO getVersao() {
+        return repositorio.findVersao();
+    }
+
+    @Transactional(readOnly = true)
     public TiposImoveisModel find(Integer id) {
         Optional<TiposImoveisModel> model = repositorio.findById(id);
         return model.orElse(null);
     }
 
+    @Transactional
     public TiposImoveisModel insert(TiposImoveisModel model) {
         return repositorio.save(model);
     }
 
+    @Transactional
     public TiposImoveisModel insert(TiposImoveisDTO dto) {
         TiposImoveisModel model = new TiposImoveisModel();
         model.setNome(dto.getNome());
@@ -43,19 +58,20 @@ public class TiposImoveisServices {
         return repositorio.save(model);
     }
 
+    // O nome aparece nos ImoveisListDTO em cache, então a listagem de imóveis é invalidada
+    @CacheEvict(cacheNames = { CacheConfig.IMOVEIS, CacheConfig.IMOVEIS_PAGINAS }, allEntries = true)
+    @Transactional
     public TiposImoveisModel update(TiposImoveisModel model) {
-        try {
-            if (find(model.getId()) != null) {
-                return repositorio.save(model);
-            } else {
-                return null;
-            }
-        } catch (Exception e) {
+        // Verificação e escrita na mesma transação; falhas de banco sobem para o controller
+        if (model.getId() == null || !repositorio.existsById(model.getId())) {
             return null;
         }
+        return repositorio.save(model);
     }
 
     // --- MÉTODO UPDATE USANDO DTO (NOVO) ---
+    @CacheEvict(cacheNames = { CacheConfig.IMOVEIS, CacheConfig.IMOVEIS_PAGINAS }, allEntries = true)
+    @Transactional
     public TiposImoveisModel update(Integer id, TiposImoveisDTO dto) {
         java.util.Optional<TiposImoveisModel> optionalModel = repositorio.findById(id);
         if (optionalModel.isPresent()) {
@@ -70,16 +86,13 @@ public class TiposImoveisServices {
         }
     }
 
+    @CacheEvict(cacheNames = { CacheConfig.IMOVEIS, CacheConfig.IMOVEIS_PAGINAS }, allEntries = true)
+    @Transactional
     public boolean delete(Integer id) {
-        try {
-            if (find(id) != null) {
-                repositorio.deleteById(id);
-                return true;
-            } else {
-                return false;
-            }
-        } catch (Exception e) {
+        if (!repositorio.existsById(id)) {
             return false;
         }
+        repositorio.deleteById(id);
+        return true;
     }
 }
\ No newline at end of file
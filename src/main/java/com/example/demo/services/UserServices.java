@@ -4,10 +4,13 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.demo.config.CacheConfig;
 import com.example.demo.dto.UserDTO;
 import com.example.demo.model.UserModel;
 import com.example.demo.repository.UserRepository;
@@ -30,16 +33,19 @@ public class UserServices {
     // HTTP -> Controller -> Service (getAll()) -> Repository -> Model -> Banco de
     // Dados
     // Banco de Dados -> Model -> Repository -> Service -> Controller -> HTTP
+    @Transactional(readOnly = true)
     public List<UserModel> getAll() {
         List<UserModel> lista = repositorio.findAll();
         return lista;
     }
 
+    @Transactional(readOnly = true)
     public Page<UserModel> getAll(Pageable pageable) {
         Page<UserModel> list = repositorio.findAll(pageable);
         return list;
     }
 
+    @Transactional(readOnly = true)
     public UserModel find(Integer id) {
         Optional<UserModel> model = repositorio.findById(id);
         return model.orElse(null);
@@ -52,6 +58,7 @@ public class UserServices {
      * }
      */
 
+    @Transactional
     public UserModel insert(UserDTO dto) {
         // Verificar se email já existe
         UserModel usuarioExistente = repositorio.findByEmail(dto.getEmail());
@@ -75,6 +82,9 @@ public class UserServices {
         return repositorio.save(model);
     }
 
+    // O nome aparece nos ImoveisListDTO em cache, então a listagem de imóveis é invalidada
+    @CacheEvict(cacheNames = { CacheConfig.IMOVEIS, CacheConfig.IMOVEIS_PAGINAS }, allEntries = true)
+    @Transactional
     public UserModel update(Integer id, UserDTO dto) {
         Optional<UserModel> optionalModel = repositorio.findById(id);
         if (optionalModel.isPresent()) {
@@ -99,17 +109,14 @@ public class UserServices {
         }
     }
 
+    @CacheEvict(cacheNames = { CacheConfig.IMOVEIS, CacheConfig.IMOVEIS_PAGINAS }, allEntries = true)
+    @Transactional
     public boolean delete(Integer id) {
-        try {
-            if (find(id) != null) {
-                repositorio.deleteById(id);
-                return true;
-            } else {
-                return false;
-            }
-        } catch (Exception e) {
+        if (!repositorio.existsById(id)) {
             return false;
         }
+        repositorio.deleteById(id);
+        return true;
     }
 
     /**
@@ -120,6 +127,7 @@ public class UserServices {
      * @return O objeto UserModel se as credenciais forem válidas, ou null se
      *         inválidas ou usuário não encontrado.
      */
+    @Transactional(readOnly = true)
     public UserModel login(String email, String senha) {
         // 1. Buscar usuário pelo email
         UserModel usuario = repositorio.findByEmail(email); // Precisa ter um método no UserRepository
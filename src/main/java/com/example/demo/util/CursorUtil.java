@@ -0,0 +1,78 @@
+package com.example.demo.util;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Utilitário para codificar/decodificar o cursor opaco da paginação por keyset.
+ * O cliente recebe apenas um token Base64 e o devolve no parâmetro "after".
+ *
+ * O token guarda a ordenação, o valor do campo ordenado e o ID do último registro da página
+ * (o ID desempata registros com o mesmo valor).
+ */
+public class CursorUtil {
+
+    private static final String PREFIXO_ID = "id:";      // Tokens antigos: só o ID, ordenação "id,desc"
+    private static final String PREFIXO_CHAVE = "k:";
+    private static final String ORDENACAO_ID = "id,desc";
+
+    /**
+     * Posição de um cursor: depois do registro com este valor e este ID, na ordenação informada.
+     *
+     * @param ordenacao A ordenação em que o cursor foi gerado (ex: "preco_venda,asc").
+     * @param valor     O valor do campo ordenado no último registro (null se o campo estava vazio ou é o próprio id).
+     * @param id        O ID do último registro.
+     */
+    public record Posicao(String ordenacao, BigDecimal valor, Integer id) {}
+
+    /**
+     * Gera o token do cursor a partir do último ID da página (ordenação por ID decrescente).
+     *
+     * @param ultimoId O ID do último registro retornado.
+     * @return O token opaco a ser enviado ao cliente.
+     */
+    public static String encode(Integer ultimoId) {
+        return encode(ORDENACAO_ID, null, ultimoId);
+    }
+
+    /**
+     * Gera o token do cursor a partir do último registro da página.
+     *
+     * @param ordenacao A ordenação da listagem (ex: "preco_venda,asc").
+     * @param valor     O valor do campo ordenado no último registro (pode ser null).
+     * @param ultimoId  O ID do último registro retornado.
+     * @return O token opaco a ser enviado ao cliente.
+     */
+    public static String encode(String ordenacao, BigDecimal valor, Integer ultimoId) {
+        String texto = PREFIXO_CHAVE + ordenacao + ":" + (valor != null ? valor.toPlainString() : "") + ":" + ultimoId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Lê a posição contida no token do cursor.
+     *
+     * @param token O token recebido do cliente.
+     * @return A posição a partir da qual a próxima página deve começar.
+     * @throws IllegalArgumentException Se o token for inválido.
+     */
+    public static Posicao decode(String token) {
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (texto.startsWith(PREFIXO_ID)) {
+                return new Posicao(ORDENACAO_ID, null, Integer.valueOf(texto.substring(PREFIXO_ID.length())));
+            }
+            if (!texto.startsWith(PREFIXO_CHAVE)) {
+                throw new IllegalArgumentException("Cursor inválido.");
+            }
+            String[] partes = texto.substring(PREFIXO_CHAVE.length()).split(":", -1);
+            if (partes.length != 3) {
+                throw new IllegalArgumentException("Cursor inválido.");
+            }
+            BigDecimal valor = partes[1].isEmpty() ? null : new BigDecimal(partes[1]);
+            return new Posicao(partes[0], valor, Integer.valueOf(partes[2]));
+        } catch (IllegalArgumentException e) { // NumberFormatException também é IllegalArgumentException
+            throw new IllegalArgumentException("Cursor inválido.", e);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.demo.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Leitor de CSV em fluxo: devolve um registro por vez sem carregar o arquivo em memória.
+ * Aceita campos entre aspas (com separador, quebra de linha e "" dentro deles) e linhas
+ * terminadas em \n ou \r\n. O separador (',' ou ';') é detectado pelo cabeçalho.
+ */
+public class LeitorCsv implements Closeable {
+
+    private final Reader reader;
+    private char separador;
+    private int proximo = -2; // -2 = nada lido ainda
+    private long linha = 0; // Linha do último registro lido (o cabeçalho é a 1)
+
+    public LeitorCsv(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Lê o cabeçalho e detecta o separador (o que aparecer mais vezes entre ';' e ',').
+     *
+     * @return Os nomes das colunas, sem espaços nas pontas; null se o arquivo estiver vazio.
+     * @throws IOException Se houver erro de leitura.
+     */
+    public List<String> lerCabecalho() throws IOException {
+        StringBuilder primeiraLinha = new StringBuilder();
+        int c = reader.read();
+        if (c == 0xFEFF) {
+            c = reader.read(); // BOM do UTF-8 gerado pelo Excel
+        }
+        while (c != -1 && c != '\n') {
+            primeiraLinha.append((char) c);
+            c = reader.read();
+        }
+        if (primeiraLinha.length() == 0 && c == -1) {
+            return null;
+        }
+        String texto = primeiraLinha.toString();
+        long pontoEVirgula = texto.chars().filter(ch -> ch == ';').count();
+        long virgulas = texto.chars().filter(ch -> ch == ',').count();
+        separador = pontoEVirgula > virgulas ? ';' : ',';
+
+        List<String> colunas = new ArrayList<>();
+        for (String coluna : dividir(texto)) {
+            colunas.add(coluna.trim());
+        }
+        linha = 1;
+        proximo = reader.read();
+        return colunas;
+    }
+
+    /**
+     * Lê o próximo registro, ignorando linhas em branco.
+     *
+     * @return Os valores do registro; null no fim do arquivo.
+     * @throws IOException Se houver erro de leitura ou aspas não fechadas.
+     */
+    public List<String> proximo() throws IOException {
+        if (proximo == -2) {
+            throw new IllegalStateException("Leia o cabeçalho antes dos registros.");
+        }
+        while (true) {
+            if (proximo == -1) {
+                return null;
+            }
+            linha++;
+            if (proximo == '\n' || proximo == '\r') {
+                pularFimDeLinha();
+                continue; // Linha em branco
+            }
+            return lerRegistro();
+        }
+    }
+
+    // Linha do último registro devolvido por proximo(), contando o cabeçalho como 1
+    // (quebras de linha dentro de campos entre aspas não são contadas)
+    public long getLinha() {
+        return linha;
+    }
+
+    public char getSeparador() {
+        return separador;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private List<String> lerRegistro() throws IOException {
+        List<String> valores = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreAspas = false;
+        int c = proximo;
+        while (true) {
+            if (c == -1) {
+                if (entreAspas) {
+                    throw new IOException("Aspas não fechadas no registro " + linha + ".");
+                }
+                valores.add(campo.toString());
+                proximo = -1;
+                return valores;
+            }
+            if (entreAspas) {
+                if (c == '"') {
+                    int seguinte = reader.read();
+                    if (seguinte == '"') {
+                        campo.append('"'); // Aspas escapadas
+                    } else {
+                        entreAspas = false;
+                        c = seguinte;
+                        continue;
+                    }
+                } else {
+                    campo.append((char) c);
+                }
+            } else if (c == '"' && campo.length() == 0) {
+                entreAspas = true;
+            } else if (c == separador) {
+                valores.add(campo.toString());
+                campo.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                valores.add(campo.toString());
+                proximo = c;
+                pularFimDeLinha();
+                return valores;
+            } else {
+                campo.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+
+    private void pularFimDeLinha() throws IOException {
+        if (proximo == '\r') {
+            proximo = reader.read();
+        }
+        if (proximo == '\n') {
+            proximo = reader.read();
+        }
+    }
+
+    // Divide o cabeçalho (uma única linha) respeitando aspas
+    private List<String> dividir(String texto) {
+        List<String> partes = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreAspas = false;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '"') {
+                entreAspas = !entreAspas;
+            } else if (c == separador && !entreAspas) {
+                partes.add(campo.toString());
+                campo.setLength(0);
+            } else if (c != '\r') {
+                campo.append(c);
+            }
+        }
+        partes.add(campo.toString());
+        return partes;
+    }
+}
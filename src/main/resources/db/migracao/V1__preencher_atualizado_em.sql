@@ -0,0 +1,7 @@
+-- As colunas atualizado_em (ETag das coleções) foram criadas vazias pelo ddl-auto=update e só eram
+-- preenchidas na próxima escrita de cada linha: sem isso o MAX(atualizado_em) de uma tabela antiga
+-- fica nulo e a ETag não muda.
+UPDATE imoveis SET atualizado_em = CURRENT_TIMESTAMP(6) WHERE atualizado_em IS NULL;
+UPDATE bairros SET atualizado_em = CURRENT_TIMESTAMP(6) WHERE atualizado_em IS NULL;
+UPDATE tipos_imoveis SET atualizado_em = CURRENT_TIMESTAMP(6) WHERE atualizado_em IS NULL;
+UPDATE usuarios SET atualizado_em = CURRENT_TIMESTAMP(6) WHERE atualizado_em IS NULL;
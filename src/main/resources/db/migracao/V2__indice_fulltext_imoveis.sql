@@ -0,0 +1,11 @@
+-- Índice FULLTEXT da busca por palavras-chave (função busca_texto, ver BuscaTextoConfig).
+-- O ddl-auto=update não cria índices FULLTEXT. Bancos que já têm o índice (criado pelas versões
+-- anteriores na inicialização) são mantidos como estão.
+SET @existe = (SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'imoveis' AND index_name = 'ft_imoveis_busca');
+SET @ddl = IF(@existe = 0,
+              'ALTER TABLE imoveis ADD FULLTEXT INDEX ft_imoveis_busca (titulo, descricao, caracteristicas)',
+              'DO 0');
+PREPARE criar_indice FROM @ddl;
+EXECUTE criar_indice;
+DEALLOCATE PREPARE criar_indice;
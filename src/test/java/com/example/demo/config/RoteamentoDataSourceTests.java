@@ -0,0 +1,99 @@
+package com.example.demo.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Primária e réplicas em bancos H2 separados; cada um responde o próprio nome na tabela "origem"
+class RoteamentoDataSourceTests {
+
+	private RoteamentoDataSource roteamento;
+	private JdbcTemplate jdbcTemplate;
+	private TransactionTemplate escrita;
+	private TransactionTemplate leitura;
+
+	@BeforeEach
+	void preparar() {
+		Map<String, DataSource> replicas = new LinkedHashMap<>();
+		replicas.put("replica-1", banco("replica-1"));
+		replicas.put("replica-2", banco("replica-2"));
+		roteamento = new RoteamentoDataSource(banco(RoteamentoDataSource.PRIMARIA), replicas, 5);
+
+		DataSource dataSource = new LazyConnectionDataSourceProxy(roteamento);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+		escrita = new TransactionTemplate(transactionManager);
+		leitura = new TransactionTemplate(transactionManager);
+		leitura.setReadOnly(true);
+	}
+
+	@Test
+	void escritaEForaDeTransacaoVaoParaAPrimaria() {
+		String naEscrita = escrita.execute(status -> origem());
+
+		assertThat(naEscrita).isEqualTo(RoteamentoDataSource.PRIMARIA);
+		assertThat(origem()).isEqualTo(RoteamentoDataSource.PRIMARIA);
+	}
+
+	@Test
+	void leituraReadOnlyAlternaEntreAsReplicas() {
+		List<String> origens = List.of(
+				leitura.execute(status -> origem()),
+				leitura.execute(status -> origem()),
+				leitura.execute(status -> origem()));
+
+		assertThat(origens).containsExactly("replica-1", "replica-2", "replica-1");
+	}
+
+	@Test
+	void leituraReadOnlyDentroDeUmaEscritaFicaNaPrimaria() {
+		// Como um findById do Spring Data (readOnly) chamado dentro de um TransactionTemplate de escrita:
+		// lê o que acabou de ser gravado, então não pode ir para uma réplica atrasada
+		String lidaAposGravar = escrita.execute(status -> {
+			jdbcTemplate.update("UPDATE origem SET nome = ?", "gravado");
+			return leitura.execute(interna -> origem());
+		});
+
+		String foraDaEscrita = leitura.execute(status -> origem());
+
+		assertThat(lidaAposGravar).isEqualTo("gravado");
+		assertThat(foraDaEscrita).isEqualTo("replica-1");
+	}
+
+	@Test
+	void replicaReprovadaNaVerificacaoSaiDoRodizio() {
+		// O H2 não tem SHOW REPLICA STATUS: a verificação falha como em uma réplica fora do ar
+		roteamento.verificarReplicas();
+
+		String naLeitura = leitura.execute(status -> origem());
+
+		assertThat(roteamento.getQuantidadeDisponiveis()).isZero();
+		assertThat(naLeitura).isEqualTo(RoteamentoDataSource.PRIMARIA);
+	}
+
+	private String origem() {
+		return jdbcTemplate.queryForObject("SELECT nome FROM origem", String.class);
+	}
+
+	private DataSource banco(String nome) {
+		JdbcDataSource banco = new JdbcDataSource();
+		banco.setURL("jdbc:h2:mem:roteamento-" + nome + ";DB_CLOSE_DELAY=-1");
+		JdbcTemplate jdbc = new JdbcTemplate(banco);
+		jdbc.execute("DROP TABLE IF EXISTS origem");
+		jdbc.execute("CREATE TABLE origem (nome VARCHAR(20))");
+		jdbc.update("INSERT INTO origem (nome) VALUES (?)", nome);
+		return banco;
+	}
+}
@@ -0,0 +1,80 @@
+package com.example.demo.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.example.demo.model.BlobFotoModel;
+import com.example.demo.services.BlobsFotosServices;
+import com.example.demo.services.LocalPhotoStorage;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({ BlobsFotosServices.class, LocalPhotoStorage.class })
+@ImportAutoConfiguration(TaskExecutionAutoConfiguration.class)
+class BlobsFotosTests {
+
+	@TempDir
+	static Path uploadDir;
+
+	@DynamicPropertySource
+	static void propriedades(DynamicPropertyRegistry registry) {
+		registry.add("app.upload.dir", () -> uploadDir.toString());
+	}
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private BlobsFotosServices service;
+
+	@Test
+	void mesmoConteudoDuasVezesCompartilhaOArquivo() throws IOException {
+		BlobFotoModel primeiro = service.armazenar(conteudo("foto"), "a.jpg");
+		BlobFotoModel segundo = service.armazenar(conteudo("foto"), "b.jpg");
+
+		assertThat(segundo.getHash()).isEqualTo(primeiro.getHash());
+		assertThat(segundo.getCaminho()).isEqualTo(primeiro.getCaminho());
+		assertThat(referencias(primeiro.getHash())).isEqualTo(2);
+		assertThat(uploadDir.resolve(primeiro.getCaminho())).exists();
+	}
+
+	@Test
+	void arquivoSoEApagadoNaUltimaReferencia() throws IOException {
+		BlobFotoModel blob = service.armazenar(conteudo("outra foto"), "a.jpg");
+		service.armazenar(conteudo("outra foto"), "b.jpg");
+		Path arquivo = uploadDir.resolve(blob.getCaminho());
+
+		assertThat(service.liberar(blob.getHash())).isFalse();
+		assertThat(referencias(blob.getHash())).isEqualTo(1);
+		assertThat(arquivo).exists();
+
+		assertThat(service.liberar(blob.getHash())).isTrue();
+		assertThat(service.existe(blob.getHash())).isFalse();
+		assertThat(Files.exists(arquivo)).isFalse();
+	}
+
+	private Integer referencias(String hash) {
+		entityManager.flush();
+		entityManager.clear();
+		return entityManager.find(BlobFotoModel.class, hash).getReferencias();
+	}
+
+	private static ByteArrayInputStream conteudo(String texto) {
+		return new ByteArrayInputStream(texto.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,173 @@
+package com.example.demo.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.config.MigracoesConfig;
+import com.example.demo.dto.ImoveisFiltroDTO;
+import com.example.demo.model.ImoveisModel;
+
+/**
+ * Latência da busca por palavras-chave com 100 mil imóveis, comparada ao LIKE '%termo%' que ela substitui.
+ * Só roda com um MySQL descartável (o H2 não tem FULLTEXT), e grava e apaga imóveis nele:
+ *
+ * mvn test -Dtest=BuscaTextoBenchmarkTests -Dbenchmark.mysql.url=jdbc:mysql://localhost:3306/imobiliaria_bench
+ *          -Dbenchmark.mysql.usuario=root -Dbenchmark.mysql.senha=root
+ *
+ * Os dados são commitados (o InnoDB só indexa no FULLTEXT o que já foi commitado), por isso o teste
+ * roda fora da transação do @DataJpaTest.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(MigracoesConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "benchmark.mysql.url", matches = ".+")
+class BuscaTextoBenchmarkTests {
+
+	private static final int QUANTIDADE = 100_000;
+	private static final int PRIMEIRO_ID = 1_000_000_000; // Fora da faixa dos geradores de ID
+	private static final int AQUECIMENTO = 20;
+	private static final int MEDICOES = 200;
+
+	private static final String[] PALAVRAS = ("casa apartamento cobertura sobrado terreno sala loja galpao "
+			+ "piscina churrasqueira varanda sacada jardim quintal academia playground portaria elevador "
+			+ "suite closet lavabo escritorio lareira adega sauna deposito garagem coberta ampla reformada "
+			+ "iluminada ventilada nascente vista mar montanha centro praia condominio fechado seguranca "
+			+ "mobiliado armarios planejados cozinha americana integrada piso porcelanato madeira laminado "
+			+ "aquecimento solar energia gas encanado proximo escola mercado hospital metro parque").split(" ");
+
+	@DynamicPropertySource
+	static void propriedades(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", () -> System.getProperty("benchmark.mysql.url"));
+		registry.add("spring.datasource.username", () -> System.getProperty("benchmark.mysql.usuario", "root"));
+		registry.add("spring.datasource.password", () -> System.getProperty("benchmark.mysql.senha", ""));
+		registry.add("spring.jpa.hibernate.ddl-auto", () -> "update");
+		registry.add("spring.jpa.show-sql", () -> "false");
+	}
+
+	@Autowired
+	private ImoveisRepository repositorio;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@AfterEach
+	void limpar() {
+		jdbcTemplate.update("DELETE FROM imoveis WHERE id >= ?", PRIMEIRO_ID);
+	}
+
+	@Test
+	void buscaFullTextEmCemMilImoveis() {
+		popular();
+		Random random = new Random(42);
+		TransactionTemplate leitura = new TransactionTemplate(transactionManager);
+		leitura.setReadOnly(true);
+
+		for (int i = 0; i < AQUECIMENTO; i++) {
+			buscar(leitura, termo(random), i % 2 == 0);
+			contarComLike(termo(random));
+		}
+
+		long[] fullText = new long[MEDICOES];
+		long[] like = new long[MEDICOES];
+		for (int i = 0; i < MEDICOES; i++) {
+			String termo = termo(random);
+			long inicio = System.nanoTime();
+			buscar(leitura, termo, i % 2 == 0);
+			fullText[i] = System.nanoTime() - inicio;
+
+			inicio = System.nanoTime();
+			contarComLike(termo);
+			like[i] = System.nanoTime() - inicio;
+		}
+
+		System.out.printf("Busca em %d imóveis (%d consultas): FULLTEXT p50=%.1fms p95=%.1fms | LIKE p50=%.1fms p95=%.1fms%n",
+				QUANTIDADE, MEDICOES, percentil(fullText, 50), percentil(fullText, 95),
+				percentil(like, 50), percentil(like, 95));
+		assertThat(percentil(fullText, 50)).isLessThan(percentil(like, 50));
+	}
+
+	// Página de 20 (com o COUNT da paginação) como no GET /imoveis/search?q=...; metade com filtro de finalidade
+	private void buscar(TransactionTemplate leitura, String termo, boolean comFiltro) {
+		ImoveisFiltroDTO filtro = new ImoveisFiltroDTO();
+		filtro.setQ(termo);
+		if (comFiltro) {
+			filtro.setFinalidade(ImoveisModel.Finalidade.VENDA);
+		}
+		leitura.executeWithoutResult(status -> repositorio.findAll(ImoveisSpecifications.comFiltro(filtro), PageRequest.of(0, 20)));
+	}
+
+	// A busca anterior ao índice: varre a tabela inteira
+	private void contarComLike(String termo) {
+		String padrao = "%" + termo + "%";
+		jdbcTemplate.queryForObject("SELECT COUNT(*) FROM imoveis WHERE titulo LIKE ? OR descricao LIKE ? OR caracteristicas LIKE ?",
+				Long.class, padrao, padrao, padrao);
+	}
+
+	private void popular() {
+		Random random = new Random(7);
+		List<Object[]> linhas = new ArrayList<>();
+		for (int i = 0; i < QUANTIDADE; i++) {
+			String finalidade = ImoveisModel.Finalidade.values()[i % ImoveisModel.Finalidade.values().length].name();
+			linhas.add(new Object[] { PRIMEIRO_ID + i, frase(random, 5), frase(random, 60), frase(random, 15),
+					finalidade, ImoveisModel.Status.DISPONIVEL.name(), BigDecimal.valueOf(100_000 + i) });
+			if (linhas.size() == 1000) {
+				inserir(linhas);
+			}
+		}
+		inserir(linhas);
+		jdbcTemplate.execute("ANALYZE TABLE imoveis");
+	}
+
+	private void inserir(List<Object[]> linhas) {
+		jdbcTemplate.batchUpdate("INSERT INTO imoveis (id, titulo, descricao, caracteristicas, finalidade, status, "
+				+ "preco_venda, endereco, numero, cep, destaque) VALUES (?, ?, ?, ?, ?, ?, ?, 'Rua', '1', '00000-000', false)",
+				linhas);
+		linhas.clear();
+	}
+
+	private static String frase(Random random, int palavras) {
+		// Distribuição desigual, como em anúncios reais: poucas palavras muito comuns e muitas raras
+		StringBuilder frase = new StringBuilder();
+		for (int i = 0; i < palavras; i++) {
+			double sorteio = random.nextDouble();
+			frase.append(i == 0 ? "" : " ").append(PALAVRAS[(int) (PALAVRAS.length * sorteio * sorteio * sorteio)]);
+		}
+		return frase.toString();
+	}
+
+	private static String termo(Random random) {
+		return PALAVRAS[random.nextInt(PALAVRAS.length)];
+	}
+
+	private static double percentil(long[] tempos, int percentil) {
+		long[] ordenados = tempos.clone();
+		Arrays.sort(ordenados);
+		int indice = Math.min(ordenados.length - 1, (int) Math.ceil(percentil / 100.0 * ordenados.length) - 1);
+		return ordenados[indice] / 1_000_000.0;
+	}
+}
@@ -0,0 +1,67 @@
+package com.example.demo.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import com.example.demo.dto.ImoveisFiltroDTO;
+import com.example.demo.model.ImoveisModel;
+
+// No H2 a função busca_texto é um LIKE (ver BuscaTextoConfig): aqui vale a combinação com os filtros,
+// não a relevância, que depende do índice FULLTEXT do MySQL
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class BuscaTextoTests {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private ImoveisRepository repositorio;
+
+	@BeforeEach
+	void setUp() {
+		criarImovel("Casa com piscina", ImoveisModel.Finalidade.VENDA);
+		criarImovel("Apartamento com piscina", ImoveisModel.Finalidade.ALUGUEL);
+		criarImovel("Casa térrea", ImoveisModel.Finalidade.VENDA);
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	void palavrasChaveSaoCombinadasComOsDemaisFiltros() {
+		ImoveisFiltroDTO filtro = new ImoveisFiltroDTO();
+		filtro.setQ("piscina");
+		filtro.setFinalidade(ImoveisModel.Finalidade.VENDA);
+
+		Page<ImoveisModel> pagina = repositorio.findAll(ImoveisSpecifications.comFiltro(filtro), PageRequest.of(0, 10));
+
+		assertThat(pagina.getTotalElements()).isEqualTo(1);
+		assertThat(pagina.getContent()).extracting(ImoveisModel::getTitulo).containsExactly("Casa com piscina");
+	}
+
+	@Test
+	void semOutrosFiltrosBuscaSoPelasPalavrasChave() {
+		ImoveisFiltroDTO filtro = new ImoveisFiltroDTO();
+		filtro.setQ("  PISCINA ");
+
+		Page<ImoveisModel> pagina = repositorio.findAll(ImoveisSpecifications.comFiltro(filtro), PageRequest.of(0, 10));
+
+		assertThat(pagina.getContent()).extracting(ImoveisModel::getTitulo)
+				.containsExactlyInAnyOrder("Casa com piscina", "Apartamento com piscina");
+	}
+
+	private void criarImovel(String titulo, ImoveisModel.Finalidade finalidade) {
+		ImoveisModel imovel = new ImoveisModel(null, titulo, "Descrição", BigDecimal.TEN, null,
+				finalidade, ImoveisModel.Status.DISPONIVEL, 2, 1, 1,
+				BigDecimal.ONE, BigDecimal.ONE, "Rua", "1", null, "00000-000", null, false);
+		entityManager.persist(imovel);
+	}
+}
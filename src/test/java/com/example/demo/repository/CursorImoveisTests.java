@@ -0,0 +1,109 @@
+package com.example.demo.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import com.example.demo.config.CacheConfig;
+import com.example.demo.dto.ImoveisCursorDTO;
+import com.example.demo.dto.ImoveisListDTO;
+import com.example.demo.model.ImoveisModel;
+import com.example.demo.services.ImoveisFacetasServices;
+import com.example.demo.services.ImoveisServices;
+import com.example.demo.util.CursorUtil;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({ ImoveisServices.class, ImoveisFacetasServices.class, CacheConfig.class })
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class CursorImoveisTests {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private ImoveisServices service;
+
+	private final List<ImoveisModel> imoveis = new ArrayList<>();
+
+	@BeforeEach
+	void preparar() {
+		// Preços repetidos (o id desempata) e imóveis sem preço de venda
+		for (String preco : new String[] { "300000", "150000", null, "300000", "150000", "500000", null, "300000" }) {
+			ImoveisModel imovel = new ImoveisModel(null, "Imóvel " + preco, null, preco != null ? new BigDecimal(preco) : null,
+					null, ImoveisModel.Finalidade.VENDA, ImoveisModel.Status.DISPONIVEL, 2, 1, 1,
+					BigDecimal.ONE, BigDecimal.ONE, "Rua", "1", null, "00000-000", null, false);
+			imoveis.add(entityManager.persist(imovel));
+		}
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	void percorreTodasAsPaginasPeloPrecoCrescente() {
+		List<Integer> esperado = imoveis.stream()
+				.sorted(Comparator.comparing(ImoveisModel::getPreco_venda, Comparator.nullsLast(Comparator.naturalOrder()))
+						.thenComparing(ImoveisModel::getId))
+				.map(ImoveisModel::getId).toList();
+
+		assertThat(percorrer("preco_venda,asc", 3)).containsExactlyElementsOf(esperado);
+	}
+
+	@Test
+	void percorreTodasAsPaginasPeloPrecoDecrescente() {
+		// Decrescente inverte o valor e o desempate, mas os imóveis sem preço continuam no fim
+		Comparator<ImoveisModel> decrescente = Comparator.comparing(ImoveisModel::getPreco_venda,
+				Comparator.nullsFirst(Comparator.<BigDecimal>naturalOrder())).thenComparing(ImoveisModel::getId);
+		List<ImoveisModel> comPreco = imoveis.stream().filter(i -> i.getPreco_venda() != null)
+				.sorted(decrescente.reversed()).toList();
+		List<ImoveisModel> semPreco = imoveis.stream().filter(i -> i.getPreco_venda() == null)
+				.sorted(Comparator.comparing(ImoveisModel::getId).reversed()).toList();
+		List<Integer> esperado = new ArrayList<>();
+		comPreco.forEach(i -> esperado.add(i.getId()));
+		semPreco.forEach(i -> esperado.add(i.getId()));
+
+		assertThat(percorrer("preco_venda,desc", 2)).containsExactlyElementsOf(esperado);
+	}
+
+	@Test
+	void ordenacaoPadraoContinuaAceitandoOCursorAntigoDeId() {
+		List<Integer> ids = imoveis.stream().map(ImoveisModel::getId).sorted(Comparator.reverseOrder()).toList();
+
+		ImoveisCursorDTO pagina = service.getPorCursor(CursorUtil.encode(ids.get(1)), 3, false, "id,desc");
+
+		assertThat(pagina.getConteudo()).extracting(ImoveisListDTO::getId).containsExactlyElementsOf(ids.subList(2, 5));
+	}
+
+	@Test
+	void cursorDeOutraOrdenacaoOuCampoSemSuporteSaoRecusados() {
+		String cursorPorPreco = service.getPorCursor(null, 2, false, "preco_venda,asc").getProximoCursor();
+
+		assertThatThrownBy(() -> service.getPorCursor(cursorPorPreco, 2, false, "preco_venda,desc"))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> service.getPorCursor(null, 2, false, "titulo,asc"))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private List<Integer> percorrer(String ordenacao, int tamanho) {
+		List<Integer> ids = new ArrayList<>();
+		String cursor = null;
+		do {
+			ImoveisCursorDTO pagina = service.getPorCursor(cursor, tamanho, false, ordenacao);
+			pagina.getConteudo().forEach(dto -> ids.add(dto.getId()));
+			cursor = pagina.getProximoCursor();
+		} while (cursor != null);
+		return ids;
+	}
+}
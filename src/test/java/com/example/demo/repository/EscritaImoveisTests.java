@@ -0,0 +1,198 @@
+package com.example.demo.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.transaction.TestTransaction;
+
+import com.example.demo.config.CacheConfig;
+import com.example.demo.dto.AtualizacaoLoteImoveisDTO;
+import com.example.demo.dto.ImoveisDTO;
+import com.example.demo.model.BairrosModel;
+import com.example.demo.model.ImoveisModel;
+import com.example.demo.model.TiposImoveisModel;
+import com.example.demo.model.UserModel;
+import com.example.demo.services.ImoveisFacetasServices;
+import com.example.demo.services.ImoveisServices;
+
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.demo.repository.EscritaImoveisTests$SqlExecutado"
+})
+// CacheConfig liga o @EnableCaching; o @DataJpaTest troca o provedor por um CacheManager sem cache
+@Import({ ImoveisServices.class, ImoveisFacetasServices.class, CacheConfig.class })
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class EscritaImoveisTests {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private ImoveisServices service;
+
+	@Autowired
+	private ImoveisFacetasServices facetas;
+
+	private Statistics statistics;
+	private TiposImoveisModel tipo;
+	private BairrosModel bairro;
+	private UserModel admin;
+	private ImoveisModel imovel;
+
+	@BeforeEach
+	void preparar() {
+		statistics = entityManager.getEntityManager().getEntityManagerFactory()
+				.unwrap(SessionFactory.class).getStatistics();
+
+		tipo = entityManager.persist(new TiposImoveisModel(null, "Casa", null));
+		bairro = entityManager.persist(new BairrosModel(null, "Centro", "Cidade", "UF", null, null));
+		admin = new UserModel(null, "Admin", "admin@teste.com");
+		admin.setTipo(UserModel.Tipo.ADMIN);
+		admin = entityManager.persist(admin);
+
+		// Também reserva o bloco de IDs dos imóveis, para o gerador não entrar na contagem
+		ImoveisModel model = new ImoveisModel();
+		model.setTitulo("Casa antiga");
+		model.setPreco_venda(new BigDecimal("100000.00"));
+		model.setFinalidade(ImoveisModel.Finalidade.VENDA);
+		model.setStatus(ImoveisModel.Status.DISPONIVEL);
+		model.setEndereco("Rua A");
+		model.setNumero("1");
+		model.setCep("00000-000");
+		model.setTipoImovel(tipo);
+		model.setBairro(bairro);
+		model.setUsuario(admin);
+		imovel = entityManager.persist(model);
+
+		entityManager.flush();
+		entityManager.clear();
+		statistics.clear();
+		SqlExecutado.COMANDOS.clear();
+	}
+
+	@Test
+	void insertNaoBuscaTipoBairroNemUsuario() {
+		service.insert(novoDto("Casa nova"));
+
+		// Só o INSERT do imóvel: os relacionamentos entram como referência
+		assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+		assertThat(statistics.getEntityLoadCount()).isZero();
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void updateCarregaOImovelUmaVezEGeraUmUpdate() {
+		service.update(imovel.getId(), novoDto("Casa reformada"), admin);
+
+		// Um SELECT do imóvel e um UPDATE (antes: find + findById + 3 buscas de relacionamento + merge)
+		assertThat(statistics.getEntityLoadCount()).isEqualTo(1);
+		assertThat(statistics.getEntityUpdateCount()).isEqualTo(1);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+	}
+
+	@Test
+	void bairroInexistenteViraMensagemDeNaoEncontrado() {
+		ImoveisDTO dto = novoDto("Casa sem bairro");
+		dto.setBairroId(999_999);
+
+		assertThatThrownBy(() -> service.insert(dto))
+				.hasMessage("Bairro com ID 999999 não encontrado.");
+	}
+
+	@Test
+	void updateDeModeloPropagaOErroEmVezDeDevolverNull() {
+		ImoveisModel model = entityManager.find(ImoveisModel.class, imovel.getId());
+		entityManager.detach(model);
+		model.setBairro(new BairrosModel(999_999, null, null, null, null, null));
+		ImoveisModel inexistente = new ImoveisModel();
+		inexistente.setId(999_999);
+
+		// Imóvel inexistente continua sendo null; um relacionamento inválido não é mais engolido
+		assertThat(service.update(inexistente)).isNull();
+		assertThatThrownBy(() -> service.update(model)).hasMessage("Bairro não encontrado");
+	}
+
+	@Test
+	void indiceDeFacetasSoMudaDepoisDoCommit() {
+		ImoveisModel salvo = service.insert(novoDto("Casa nova"));
+		List<Integer> antesDoCommit = facetas.buscar(Map.of(), 0, 100).getIds();
+
+		TestTransaction.end(); // Rollback da transação do teste
+
+		assertThat(antesDoCommit).doesNotContain(salvo.getId());
+		assertThat(facetas.buscar(Map.of(), 0, 100).getIds()).doesNotContain(salvo.getId());
+	}
+
+	@Test
+	void atualizacaoEmLoteSoGravaAsColunasPedidas() {
+		AtualizacaoLoteImoveisDTO dto = new AtualizacaoLoteImoveisDTO();
+		dto.setIds(List.of(imovel.getId()));
+		dto.setStatus(ImoveisModel.Status.VENDIDO);
+
+		assertThat(service.atualizarEmLote(dto, admin)).isEqualTo(1);
+
+		String update = SqlExecutado.COMANDOS.stream()
+				.filter(sql -> sql.toLowerCase().startsWith("update imoveis")).findFirst().orElseThrow();
+		assertThat(update.toLowerCase()).contains("status").doesNotContain("preco").doesNotContain("destaque");
+	}
+
+	@Test
+	void atualizacaoEmLoteReajustaSoOPrecoInformado() {
+		AtualizacaoLoteImoveisDTO dto = new AtualizacaoLoteImoveisDTO();
+		dto.setIds(List.of(imovel.getId()));
+		dto.setPercentualVenda(new BigDecimal("10"));
+
+		service.atualizarEmLote(dto, admin);
+		entityManager.clear();
+
+		ImoveisModel atualizado = entityManager.find(ImoveisModel.class, imovel.getId());
+		assertThat(atualizado.getPreco_venda()).isEqualByComparingTo("110000.00");
+		assertThat(atualizado.getPreco_aluguel()).isNull();
+		assertThat(atualizado.getStatus()).isEqualTo(ImoveisModel.Status.DISPONIVEL);
+	}
+
+	// Guarda o SQL gerado, para conferir as colunas do UPDATE em lote
+	public static class SqlExecutado implements StatementInspector {
+
+		static final List<String> COMANDOS = new CopyOnWriteArrayList<>();
+
+		@Override
+		public String inspect(String sql) {
+			COMANDOS.add(sql);
+			return sql;
+		}
+	}
+
+	private ImoveisDTO novoDto(String titulo) {
+		ImoveisDTO dto = new ImoveisDTO();
+		dto.setTitulo(titulo);
+		dto.setPreco_venda(new BigDecimal("350000.00"));
+		dto.setFinalidade(ImoveisModel.Finalidade.VENDA);
+		dto.setStatus(ImoveisModel.Status.DISPONIVEL);
+		dto.setEndereco("Rua B");
+		dto.setNumero("2");
+		dto.setCep("00000-000");
+		dto.setDestaque(false);
+		dto.setTipoImovelId(tipo.getId());
+		dto.setBairroId(bairro.getId());
+		dto.setUsuarioId(admin.getId());
+		return dto;
+	}
+}
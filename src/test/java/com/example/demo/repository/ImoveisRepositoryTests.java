@@ -0,0 +1,96 @@
+package com.example.demo.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import com.example.demo.dto.ImoveisListDTO;
+import com.example.demo.model.BairrosModel;
+import com.example.demo.model.ImoveisModel;
+import com.example.demo.model.TiposImoveisModel;
+import com.example.demo.model.UserModel;
+
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ImoveisRepositoryTests {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private ImoveisRepository repositorio;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManager.getEntityManager().getEntityManagerFactory()
+				.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	void listagemUsaUmUnicoSelectIndependenteDaQuantidadeDeImoveis() {
+		criarImoveis(1);
+		long comUmImovel = contarSelectsDaListagem();
+
+		criarImoveis(25);
+		long comVariosImoveis = contarSelectsDaListagem();
+
+		assertThat(comUmImovel).isEqualTo(1);
+		assertThat(comVariosImoveis).isEqualTo(comUmImovel);
+	}
+
+	@Test
+	void listagemPreencheOsDadosDosRelacionamentos() {
+		criarImoveis(1);
+		// Com IDs em tabela o INSERT só sai no flush (não mais no persist)
+		entityManager.flush();
+		entityManager.clear();
+
+		List<ImoveisListDTO> lista = repositorio.findAllListagem();
+
+		assertThat(lista).hasSize(1);
+		ImoveisListDTO dto = lista.get(0);
+		assertThat(dto.getNome_tipo_imovel()).isEqualTo("Casa");
+		assertThat(dto.getNome_bairro()).isEqualTo("Centro");
+		assertThat(dto.getEmail_usuario()).isEqualTo("corretor@teste.com");
+	}
+
+	private long contarSelectsDaListagem() {
+		entityManager.flush();
+		entityManager.clear();
+		statistics.clear();
+		List<ImoveisListDTO> lista = repositorio.findAllListagem();
+		assertThat(lista).isNotEmpty();
+		return statistics.getPrepareStatementCount();
+	}
+
+	private void criarImoveis(int quantidade) {
+		for (int i = 0; i < quantidade; i++) {
+			TiposImoveisModel tipo = entityManager.persist(new TiposImoveisModel(null, "Casa", null));
+			BairrosModel bairro = entityManager.persist(new BairrosModel(null, "Centro", "Cidade", "UF", null, null));
+			UserModel usuario = new UserModel(null, "Corretor", "corretor@teste.com");
+			usuario.setTipo(UserModel.Tipo.CORRETOR);
+			entityManager.persist(usuario);
+
+			ImoveisModel imovel = new ImoveisModel(null, "Imóvel " + i, "Descrição", BigDecimal.TEN, null,
+					ImoveisModel.Finalidade.VENDA, ImoveisModel.Status.DISPONIVEL, 2, 1, 1,
+					BigDecimal.ONE, BigDecimal.ONE, "Rua", "1", null, "00000-000", null, false);
+			imovel.setTipoImovel(tipo);
+			imovel.setBairro(bairro);
+			imovel.setUsuario(usuario);
+			entityManager.persist(imovel);
+		}
+	}
+}
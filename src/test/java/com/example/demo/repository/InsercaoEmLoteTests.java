@@ -0,0 +1,54 @@
+package com.example.demo.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import com.example.demo.model.BairrosModel;
+
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class InsercaoEmLoteTests {
+
+	private static final int QUANTIDADE = 1000;
+	private static final int TAMANHO_LOTE = 50; // hibernate.jdbc.batch_size
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private BairrosRepository repositorio;
+
+	@Test
+	void saveAllDeMilLinhasUsaLotesEmVezDeUmInsertPorLinha() {
+		Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+				.unwrap(SessionFactory.class).getStatistics();
+
+		List<BairrosModel> bairros = new ArrayList<>();
+		for (int i = 0; i < QUANTIDADE; i++) {
+			bairros.add(new BairrosModel(null, "Bairro " + i, "Cidade", "UF", null, null));
+		}
+
+		statistics.clear();
+		repositorio.saveAll(bairros);
+		entityManager.flush();
+
+		// No máximo um INSERT preparado por lote de 50 (o Hibernate reaproveita o mesmo entre os lotes);
+		// sem lote (batch_size=1 ou IDENTITY) são 1000, um por linha. A reserva dos blocos de IDs roda
+		// em uma conexão à parte e não entra na contagem
+		long lotes = QUANTIDADE / TAMANHO_LOTE;
+		assertThat(statistics.getEntityInsertCount()).isEqualTo(QUANTIDADE);
+		assertThat(statistics.getPrepareStatementCount()).isBetween(1L, lotes);
+		assertThat(repositorio.count()).isEqualTo(QUANTIDADE);
+	}
+}
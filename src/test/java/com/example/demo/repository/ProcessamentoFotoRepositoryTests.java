@@ -0,0 +1,62 @@
+package com.example.demo.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import com.example.demo.model.ProcessamentoFotoModel;
+import com.example.demo.model.ProcessamentoFotoModel.Status;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class ProcessamentoFotoRepositoryTests {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private ProcessamentoFotoRepository repositorio;
+
+	@Test
+	void soUmaReservaGanhaOJobPendente() {
+		Integer id = entityManager.persistFlushFind(new ProcessamentoFotoModel(1)).getId();
+		Instant agora = Instant.now();
+
+		int primeira = repositorio.reservar(id, agora, Status.PENDENTE, Status.PROCESSANDO);
+		int segunda = repositorio.reservar(id, agora, Status.PENDENTE, Status.PROCESSANDO);
+
+		entityManager.clear();
+		ProcessamentoFotoModel job = repositorio.findById(id).orElseThrow();
+		assertThat(primeira).isEqualTo(1);
+		assertThat(segunda).isZero();
+		assertThat(job.getStatus()).isEqualTo(Status.PROCESSANDO);
+		assertThat(job.getTentativas()).isEqualTo(1);
+		assertThat(job.getProcessandoDesde()).isNotNull();
+	}
+
+	@Test
+	void soJobsComAReservaVencidaVoltamParaAFila() {
+		Instant agora = Instant.now();
+		Integer abandonado = reservado(1, agora.minus(1, ChronoUnit.HOURS));
+		Integer emAndamento = reservado(2, agora);
+
+		int liberados = repositorio.liberarExpirados(agora.minus(10, ChronoUnit.MINUTES),
+				Status.PROCESSANDO, Status.PENDENTE);
+
+		entityManager.clear();
+		assertThat(liberados).isEqualTo(1);
+		assertThat(repositorio.findById(abandonado).orElseThrow().getStatus()).isEqualTo(Status.PENDENTE);
+		assertThat(repositorio.findById(emAndamento).orElseThrow().getStatus()).isEqualTo(Status.PROCESSANDO);
+	}
+
+	private Integer reservado(Integer fotoId, Instant desde) {
+		Integer id = entityManager.persistFlushFind(new ProcessamentoFotoModel(fotoId)).getId();
+		repositorio.reservar(id, desde, Status.PENDENTE, Status.PROCESSANDO);
+		return id;
+	}
+}
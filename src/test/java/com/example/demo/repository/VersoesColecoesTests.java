@@ -0,0 +1,76 @@
+package com.example.demo.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.cache.Cache;
+import javax.cache.Caching;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import com.example.demo.config.CacheConfig;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+// As quatro consultas de versão (ETag) vão para a mesma região do cache de consultas, que expira por tempo
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class VersoesColecoesTests {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private ImoveisRepository imoveisRepository;
+
+	@Autowired
+	private BairrosRepository bairrosRepository;
+
+	@Autowired
+	private TiposImoveisRepository tiposRepository;
+
+	@Autowired
+	private UserRepository usuariosRepository;
+
+	@Test
+	void versoesDasColecoesUsamOCacheDeConsultas() {
+		Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+				.unwrap(SessionFactory.class).getStatistics();
+
+		consultarVersoes(); // Vai ao banco (ou já está no cache)
+		statistics.clear();
+
+		consultarVersoes();
+
+		// A segunda rodada vem toda do cache, inclusive a versão dos usuários
+		assertThat(statistics.getQueryExecutionCount()).isZero();
+		assertThat(statistics.getQueryRegionStatistics(CacheConfig.VERSOES).getHitCount()).isEqualTo(4);
+	}
+
+	@Test
+	void regiaoDasVersoesExpiraPorTempo() {
+		usuariosRepository.findVersao(); // Cria a região
+
+		Cache<?, ?> regiao = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+				.getCacheManager().getCache(CacheConfig.VERSOES);
+
+		assertThat(regiao).isNotNull();
+		assertThat(regiao.getConfiguration(CaffeineConfiguration.class).getExpireAfterWrite())
+				.hasValue(TimeUnit.SECONDS.toNanos(5));
+	}
+
+	private void consultarVersoes() {
+		imoveisRepository.findVersao();
+		bairrosRepository.findVersao();
+		tiposRepository.findVersao();
+		usuariosRepository.findVersao();
+	}
+}
@@ -0,0 +1,249 @@
+package com.example.demo.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.fileupload.FileUpload;
+import org.apache.commons.fileupload.UploadContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import com.example.demo.model.BlobFotoModel;
+
+/**
+ * Upload de fotos pelo mesmo caminho do POST /fotos-imoveis: multipart lido em fluxo, SHA-256 calculado
+ * durante a gravação e o conteúdo gravado uma única vez no PhotoStorage (depois só movido para a chave final).
+ *
+ * O benchmark com 10 MB só roda quando pedido:
+ *
+ * mvn test -Dtest=UploadFotosTests -Dbenchmark.upload=true
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({ BlobsFotosServices.class, UploadFotosTests.Armazenamento.class })
+@ImportAutoConfiguration(TaskExecutionAutoConfiguration.class)
+class UploadFotosTests {
+
+	private static final int TAMANHO_BENCHMARK = 10 * 1024 * 1024;
+	private static final int AQUECIMENTO = 3;
+	private static final int MEDICOES = 10;
+	private static final String FRONTEIRA = "----fronteira-benchmark";
+
+	@TempDir
+	static Path uploadDir;
+
+	@Autowired
+	private BlobsFotosServices service;
+
+	@Autowired
+	private StorageContador storage;
+
+	@Test
+	void uploadGravaOConteudoUmaUnicaVezEMoveParaAChaveFinal() throws Exception {
+		byte[] foto = foto(64 * 1024);
+		byte[] corpo = corpoMultipart(foto, 0);
+		storage.zerar();
+
+		BlobFotoModel blob = enviar(corpo);
+
+		assertThat(storage.bytesGravados.get()).isEqualTo(foto.length);
+		assertThat(storage.movidos.get()).isEqualTo(1);
+		assertThat(Files.size(uploadDir.resolve(blob.getCaminho()))).isEqualTo(foto.length);
+		assertThat(blob.getHash()).isEqualTo(sha256(conteudo(corpo, foto.length)));
+	}
+
+	@Test
+	@EnabledIfSystemProperty(named = "benchmark.upload", matches = "true")
+	void benchmarkUploadDeDezMegas() throws Exception {
+		byte[] foto = foto(TAMANHO_BENCHMARK);
+
+		for (int i = 0; i < AQUECIMENTO; i++) {
+			enviar(corpoMultipart(foto, -1 - i));
+		}
+
+		long[] tempos = new long[MEDICOES];
+		for (int i = 0; i < MEDICOES; i++) {
+			byte[] corpo = corpoMultipart(foto, i); // Conteúdo diferente a cada envio: sempre um blob novo
+			storage.zerar();
+
+			long inicio = System.nanoTime();
+			enviar(corpo);
+			tempos[i] = System.nanoTime() - inicio;
+
+			assertThat(storage.bytesGravados.get()).isEqualTo(TAMANHO_BENCHMARK);
+			assertThat(storage.movidos.get()).isEqualTo(1);
+		}
+
+		Arrays.sort(tempos);
+		double medianaMs = tempos[MEDICOES / 2] / 1_000_000.0;
+		System.out.printf("Upload de 10 MB (%d envios): p50=%.1fms máx=%.1fms (%.0f MB/s)%n",
+				MEDICOES, medianaMs, tempos[MEDICOES - 1] / 1_000_000.0, 10 / (medianaMs / 1000));
+	}
+
+	// Lê o multipart como o FotosImoveisController e armazena a parte "arquivo"
+	private BlobFotoModel enviar(byte[] corpo) throws Exception {
+		FileUpload upload = new FileUpload();
+		upload.setFileSizeMax(20L * 1024 * 1024);
+		FileItemIterator partes = upload.getItemIterator(new Requisicao(corpo));
+		BlobFotoModel blob = null;
+		while (partes.hasNext()) {
+			FileItemStream parte = partes.next();
+			try (InputStream conteudo = parte.openStream()) {
+				blob = service.armazenar(conteudo, parte.getName());
+			}
+		}
+		return blob;
+	}
+
+	private static byte[] foto(int tamanho) {
+		byte[] foto = new byte[tamanho];
+		new Random(42).nextBytes(foto);
+		return foto;
+	}
+
+	private static byte[] corpoMultipart(byte[] foto, int envio) throws IOException {
+		byte[] conteudo = foto.clone();
+		for (int i = 0; i < Integer.BYTES; i++) {
+			conteudo[i] = (byte) (envio >>> (8 * i));
+		}
+		ByteArrayOutputStream corpo = new ByteArrayOutputStream(conteudo.length + 512);
+		corpo.write(("--" + FRONTEIRA + "\r\n"
+				+ "Content-Disposition: form-data; name=\"arquivo\"; filename=\"foto.jpg\"\r\n"
+				+ "Content-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+		corpo.write(conteudo);
+		corpo.write(("\r\n--" + FRONTEIRA + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+		return corpo.toByteArray();
+	}
+
+	// O conteúdo do arquivo dentro do corpo multipart (para conferir o hash)
+	private static byte[] conteudo(byte[] corpo, int tamanho) {
+		int inicio = new String(corpo, 0, 512, StandardCharsets.ISO_8859_1).indexOf("\r\n\r\n") + 4;
+		return Arrays.copyOfRange(corpo, inicio, inicio + tamanho);
+	}
+
+	private static String sha256(byte[] conteudo) throws Exception {
+		return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(conteudo));
+	}
+
+	private record Requisicao(byte[] corpo) implements UploadContext {
+
+		@Override
+		public String getCharacterEncoding() {
+			return null;
+		}
+
+		@Override
+		public String getContentType() {
+			return "multipart/form-data; boundary=" + FRONTEIRA;
+		}
+
+		@Override
+		@Deprecated
+		public int getContentLength() {
+			return corpo.length;
+		}
+
+		@Override
+		public long contentLength() {
+			return corpo.length;
+		}
+
+		@Override
+		public InputStream getInputStream() {
+			return new ByteArrayInputStream(corpo);
+		}
+	}
+
+	@TestConfiguration
+	static class Armazenamento {
+
+		@Bean
+		StorageContador photoStorage() {
+			return new StorageContador(new LocalPhotoStorage(uploadDir.toString()));
+		}
+	}
+
+	// Disco local contando o que é gravado (por stream ou por arquivo) e o que é só movido
+	static class StorageContador implements PhotoStorage {
+
+		private final PhotoStorage local;
+		final AtomicLong bytesGravados = new AtomicLong();
+		final AtomicInteger movidos = new AtomicInteger();
+
+		StorageContador(PhotoStorage local) {
+			this.local = local;
+		}
+
+		void zerar() {
+			bytesGravados.set(0);
+			movidos.set(0);
+		}
+
+		@Override
+		public void salvar(String chave, Path origem) throws IOException {
+			bytesGravados.addAndGet(Files.size(origem));
+			local.salvar(chave, origem);
+		}
+
+		@Override
+		public long gravar(String chave, InputStream conteudo) throws IOException {
+			long gravados = local.gravar(chave, conteudo);
+			bytesGravados.addAndGet(gravados);
+			return gravados;
+		}
+
+		@Override
+		public void mover(String origem, String destino) throws IOException {
+			movidos.incrementAndGet();
+			local.mover(origem, destino);
+		}
+
+		@Override
+		public InputStream abrir(String chave) throws IOException {
+			return local.abrir(chave);
+		}
+
+		@Override
+		public InputStream abrir(String chave, long inicio, long fim) throws IOException {
+			return local.abrir(chave, inicio, fim);
+		}
+
+		@Override
+		public Optional<Metadados> metadados(String chave) throws IOException {
+			return local.metadados(chave);
+		}
+
+		@Override
+		public void excluir(String chave) throws IOException {
+			local.excluir(chave);
+		}
+
+		@Override
+		public Optional<Path> localPath(String chave) {
+			return local.localPath(chave);
+		}
+	}
+}
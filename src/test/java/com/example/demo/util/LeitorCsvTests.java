@@ -0,0 +1,103 @@
+package com.example.demo.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class LeitorCsvTests {
+
+	@Test
+	void separadorEDetectadoPeloCabecalho() throws IOException {
+		LeitorCsv pontoEVirgula = leitor("titulo;preco_venda;descricao, com virgula\n");
+		LeitorCsv virgula = leitor("titulo,preco_venda,cidade;uf\n");
+
+		assertThat(pontoEVirgula.lerCabecalho()).containsExactly("titulo", "preco_venda", "descricao, com virgula");
+		assertThat(pontoEVirgula.getSeparador()).isEqualTo(';');
+		assertThat(virgula.lerCabecalho()).containsExactly("titulo", "preco_venda", "cidade;uf");
+		assertThat(virgula.getSeparador()).isEqualTo(',');
+	}
+
+	@Test
+	void bomDoExcelECrlfSaoIgnorados() throws IOException {
+		LeitorCsv leitor = leitor("\uFEFF titulo ; preco_venda \r\nCasa;100\r\nApto;200\r\n");
+
+		assertThat(leitor.lerCabecalho()).containsExactly("titulo", "preco_venda");
+		assertThat(todos(leitor)).containsExactly(List.of("Casa", "100"), List.of("Apto", "200"));
+	}
+
+	@Test
+	void camposEntreAspasGuardamSeparadorQuebraDeLinhaEAspas() throws IOException {
+		LeitorCsv leitor = leitor("titulo,descricao\n"
+				+ "\"Casa, centro\",\"Linha 1\nLinha 2\"\r\n"
+				+ "\"Apto \"\"novo\"\"\",\"\"\n");
+
+		leitor.lerCabecalho();
+
+		assertThat(todos(leitor)).containsExactly(
+				List.of("Casa, centro", "Linha 1\nLinha 2"),
+				List.of("Apto \"novo\"", ""));
+	}
+
+	@Test
+	void linhasEmBrancoSaoPuladasMasContamNaNumeracao() throws IOException {
+		LeitorCsv leitor = leitor("titulo;preco\n\nCasa;1\r\n\r\n\nApto;2");
+
+		leitor.lerCabecalho();
+		List<String> primeiro = leitor.proximo();
+		long linhaPrimeiro = leitor.getLinha();
+		List<String> segundo = leitor.proximo();
+		long linhaSegundo = leitor.getLinha();
+
+		// Os números são os da planilha, usados no relatório de erros da importação
+		assertThat(primeiro).containsExactly("Casa", "1");
+		assertThat(linhaPrimeiro).isEqualTo(3);
+		assertThat(segundo).containsExactly("Apto", "2"); // Última linha sem quebra no final
+		assertThat(linhaSegundo).isEqualTo(6);
+		assertThat(leitor.proximo()).isNull();
+	}
+
+	@Test
+	void camposVaziosEArquivoVazio() throws IOException {
+		LeitorCsv leitor = leitor("a;b;c\n;;\n");
+
+		leitor.lerCabecalho();
+
+		assertThat(leitor.proximo()).containsExactly("", "", "");
+		assertThat(leitor("").lerCabecalho()).isNull();
+	}
+
+	@Test
+	void aspasNaoFechadasSaoRecusadas() throws IOException {
+		LeitorCsv leitor = leitor("titulo;descricao\nCasa;ok\nApto;\"sem fim\nLinha seguinte\n");
+
+		leitor.lerCabecalho();
+		leitor.proximo();
+
+		assertThatThrownBy(leitor::proximo)
+				.isInstanceOf(IOException.class)
+				.hasMessage("Aspas não fechadas no registro 3.");
+	}
+
+	@Test
+	void registrosAntesDoCabecalhoSaoRecusados() {
+		assertThatThrownBy(() -> leitor("a;b\n").proximo()).isInstanceOf(IllegalStateException.class);
+	}
+
+	private static LeitorCsv leitor(String conteudo) {
+		return new LeitorCsv(new StringReader(conteudo));
+	}
+
+	private static List<List<String>> todos(LeitorCsv leitor) throws IOException {
+		List<List<String>> registros = new ArrayList<>();
+		for (List<String> registro = leitor.proximo(); registro != null; registro = leitor.proximo()) {
+			registros.add(registro);
+		}
+		return registros;
+	}
+}